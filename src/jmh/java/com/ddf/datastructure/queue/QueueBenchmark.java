@@ -0,0 +1,131 @@
+package com.ddf.datastructure.queue;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程安全队列的吞吐量基准测试，对比{@link MpmcArrayQueue}、{@link java.util.concurrent.ArrayBlockingQueue}
+ * 和{@link java.util.concurrent.ConcurrentLinkedQueue}
+ *
+ * 每个group中的生产者线程不停地offer，消费者线程不停地poll，同一个group共享一个队列：
+ * spsc一个生产者一个消费者，mpmc两个生产者两个消费者(fan-in和fan-out)；
+ * 队列满时offer失败、队列空时poll失败也会被JMH算作一次调用，所以真正的吞吐量看辅助计数器offered和polled，
+ * offerFailed和pollFailed可以看出瓶颈在哪一边
+ *
+ * 线程数超过CPU核数时结果没有意义，mpmc至少需要4个核
+ *
+ * @author dongfang.ding
+ * @date 2019/7/19 17:10
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueBenchmark {
+
+    private static final Integer ELEMENT = 1;
+
+    @Param({"MPMC", "ARRAY_BLOCKING", "CONCURRENT_LINKED"})
+    private QueueImplementation implementation;
+
+    @Param({"1024"})
+    private int capacity;
+
+    private Queue<Integer> queue;
+
+    /**
+     * 每轮都换一个新的队列，无界队列在生产者更快时积累的元素不会影响下一轮
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = implementation.create(capacity);
+    }
+
+    /**
+     * 每个线程各自的计数，成功和失败分开统计
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long offered;
+
+        public long offerFailed;
+
+        public long polled;
+
+        public long pollFailed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            offered = 0;
+            offerFailed = 0;
+            polled = 0;
+            pollFailed = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public void spscOffer(Counters counters) {
+        offer(counters);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public Integer spscPoll(Counters counters) {
+        return poll(counters);
+    }
+
+    @Benchmark
+    @Group("mpmc")
+    @GroupThreads(2)
+    public void mpmcOffer(Counters counters) {
+        offer(counters);
+    }
+
+    @Benchmark
+    @Group("mpmc")
+    @GroupThreads(2)
+    public Integer mpmcPoll(Counters counters) {
+        return poll(counters);
+    }
+
+    private void offer(Counters counters) {
+        if (queue.offer(ELEMENT)) {
+            counters.offered++;
+        } else {
+            counters.offerFailed++;
+        }
+    }
+
+    private Integer poll(Counters counters) {
+        Integer e = queue.poll();
+        if (e != null) {
+            counters.polled++;
+        } else {
+            counters.pollFailed++;
+        }
+        return e;
+    }
+}
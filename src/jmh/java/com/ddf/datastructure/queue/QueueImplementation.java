@@ -0,0 +1,40 @@
+package com.ddf.datastructure.queue;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 基准测试中对比的线程安全队列，统一通过{@link Queue#offer(Object)}和{@link Queue#poll()}存取
+ *
+ * @author dongfang.ding
+ * @date 2019/7/19 17:10
+ */
+public enum QueueImplementation {
+
+    MPMC {
+        @Override
+        public Queue<Integer> create(int capacity) {
+            return new MpmcArrayQueue<>(capacity);
+        }
+    },
+
+    ARRAY_BLOCKING {
+        @Override
+        public Queue<Integer> create(int capacity) {
+            return new ArrayBlockingQueue<>(capacity);
+        }
+    },
+
+    /**
+     * 无界队列，capacity没有作用，生产者比消费者快时队列会一直变长
+     */
+    CONCURRENT_LINKED {
+        @Override
+        public Queue<Integer> create(int capacity) {
+            return new ConcurrentLinkedQueue<>();
+        }
+    };
+
+    public abstract Queue<Integer> create(int capacity);
+}
@@ -0,0 +1,95 @@
+package com.ddf.datastructure.queue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务的添加和取消，对比{@link TimingWheel}和{@link ScheduledThreadPoolExecutor}
+ *
+ * 先放入pending个延迟1小时以内的任务，之后每次调用添加一个新任务并立即取消，模拟大量请求超时在到期前就被取消的场景，
+ * 等待中的任务数始终保持在pending个：时间轮的添加和取消都是O(1)，ScheduledThreadPoolExecutor的堆是O(logn)，
+ * 并且打开了setRemoveOnCancelPolicy，否则取消的任务要到期后才会从堆里移除，堆会一直变大
+ *
+ * ScheduledThreadPoolExecutor是线程安全的，每次操作都要加锁，时间轮只能在一个线程中使用，这部分差别也包含在结果里
+ *
+ * @author dongfang.ding
+ * @date 2019/7/24 15:10
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TimerBenchmark {
+
+    private static final Runnable NOOP = () -> {
+    };
+
+    private static final long MAX_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"1000000"})
+    private int pending;
+
+    private TimingWheel wheel;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private long[] delays;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        Random random = new Random(42);
+        for (int i = 0; i < pending; i++) {
+            long delay = 1 + (long) (random.nextDouble() * MAX_DELAY_MILLIS);
+            wheel.schedule(NOOP, delay, TimeUnit.MILLISECONDS);
+            executor.schedule(NOOP, delay, TimeUnit.MILLISECONDS);
+        }
+        delays = new long[1 << 16];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = 1 + (long) (random.nextDouble() * MAX_DELAY_MILLIS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean timingWheel() {
+        TimingWheel.Timeout timeout = wheel.schedule(NOOP, nextDelay(), TimeUnit.MILLISECONDS);
+        return timeout.cancel();
+    }
+
+    @Benchmark
+    public boolean scheduledExecutor() {
+        ScheduledFuture<?> future = executor.schedule(NOOP, nextDelay(), TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+
+    private long nextDelay() {
+        return delays[next++ & (delays.length - 1)];
+    }
+}
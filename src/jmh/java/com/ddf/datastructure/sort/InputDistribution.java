@@ -0,0 +1,89 @@
+package com.ddf.datastructure.sort;
+
+import java.util.Random;
+
+/**
+ * 基准测试的输入数据分布
+ *
+ * 不同的排序算法对数据的分布非常敏感，比如插入排序对已经有序的数据是O(n)，而对逆序的数据则是O(n²)，
+ * 所以基准测试需要覆盖常见的几种分布，数据使用固定的随机种子生成，保证每次测试的输入都一样
+ *
+ * @author dongfang.ding
+ * @date 2019/7/9 10:30
+ */
+public enum InputDistribution {
+
+    /**
+     * 完全随机
+     */
+    RANDOM {
+        @Override
+        int value(int i, int size, Random random) {
+            return random.nextInt();
+        }
+    },
+
+    /**
+     * 已经有序
+     */
+    SORTED {
+        @Override
+        int value(int i, int size, Random random) {
+            return i;
+        }
+    },
+
+    /**
+     * 完全逆序
+     */
+    REVERSED {
+        @Override
+        int value(int i, int size, Random random) {
+            return size - i;
+        }
+    },
+
+    /**
+     * 锯齿状，由长度为sqrt(n)的若干个升序段组成
+     */
+    SAWTOOTH {
+        @Override
+        int value(int i, int size, Random random) {
+            return i % Math.max(1, (int) Math.sqrt(size));
+        }
+    },
+
+    /**
+     * 只有少数几个不同的值，大量重复元素
+     */
+    FEW_UNIQUE {
+        @Override
+        int value(int i, int size, Random random) {
+            return random.nextInt(8);
+        }
+    },
+
+    /**
+     * 风琴管，前半段升序，后半段降序
+     */
+    ORGAN_PIPE {
+        @Override
+        int value(int i, int size, Random random) {
+            return i < size / 2 ? i : size - i;
+        }
+    };
+
+    abstract int value(int i, int size, Random random);
+
+    /**
+     * 生成指定大小的输入数据
+     */
+    public int[] generate(int size) {
+        Random random = new Random(size);
+        int[] arr = new int[size];
+        for (int i = 0; i < size; i++) {
+            arr[i] = value(i, size, random);
+        }
+        return arr;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ddf.datastructure.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * O(n²)排序的基准测试，冒泡、选择、插入排序(包括二分插入)在几万个元素以上单次就要数秒，所以规模只测到65536，更大的规模见{@link SortBenchmark}
+ *
+ * 每次调用都先把原始数据拷贝到工作数组再排序，拷贝是O(n)的，对所有算法都一样
+ *
+ * @author dongfang.ding
+ * @date 2019/7/9 10:30
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class QuadraticSortBenchmark {
+
+    @Param({"BUBBLE", "SELECT", "INSERT", "INSERT_BINARY"})
+    private SortAlgorithm algorithm;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "SAWTOOTH", "FEW_UNIQUE", "ORGAN_PIPE"})
+    private InputDistribution distribution;
+
+    @Param({"16", "256", "4096", "65536"})
+    private int size;
+
+    private int[] source;
+
+    private int[] work;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = distribution.generate(size);
+        work = new int[size];
+    }
+
+    @Benchmark
+    public int[] sort() {
+        System.arraycopy(source, 0, work, 0, size);
+        return algorithm.sort(work);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ddf.datastructure.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 小区间排序的基准测试，对比插入排序和排序网络处理快速排序叶子区间的速度
+ *
+ * 一次调用把65536个随机数按block个一组分别排序，和快速排序的叶子一样，每一组都是一次独立的小排序；
+ * fork出来的JVM需要加上--add-modules=jdk.incubator.vector，否则排序网络会退回到插入排序，两者的耗时应该相同
+ *
+ * @author dongfang.ding
+ * @date 2019/7/12 15:40
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SmallSortBenchmark {
+
+    private static final int SIZE = 1 << 16;
+
+    @Param({"8", "16", "24", "32", "48", "64"})
+    private int block;
+
+    @Param({"RANDOM", "SORTED", "FEW_UNIQUE"})
+    private InputDistribution distribution;
+
+    private int[] source;
+
+    private int[] work;
+
+    private final int[] scratch = new int[SortingNetwork.MAX_BLOCK];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = distribution.generate(SIZE);
+        work = new int[SIZE];
+    }
+
+    @Benchmark
+    public int[] insert() {
+        System.arraycopy(source, 0, work, 0, SIZE);
+        for (int i = 0; i + block <= SIZE; i += block) {
+            InsertSort.sort(work, i, i + block);
+        }
+        return work;
+    }
+
+    @Benchmark
+    public int[] network() {
+        System.arraycopy(source, 0, work, 0, SIZE);
+        for (int i = 0; i + block <= SIZE; i += block) {
+            SortingNetwork.sort(work, i, i + block, scratch);
+        }
+        return work;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ddf.datastructure.sort;
+
+/**
+ * 基准测试中的排序算法，统一使用在原数组上排序的方法，避免把拷贝数组的开销也算进去
+ *
+ * @author dongfang.ding
+ * @date 2019/7/9 10:30
+ */
+public enum SortAlgorithm {
+
+    BUBBLE {
+        @Override
+        public int[] sort(int[] arr) {
+            BubbleSort.sortInPlace(arr);
+            return arr;
+        }
+    },
+
+    SELECT {
+        @Override
+        public int[] sort(int[] arr) {
+            SelectSort.sortInPlace(arr);
+            return arr;
+        }
+    },
+
+    INSERT {
+        @Override
+        public int[] sort(int[] arr) {
+            InsertSort.sortInPlace(arr);
+            return arr;
+        }
+    },
+
+    INSERT_BINARY {
+        @Override
+        public int[] sort(int[] arr) {
+            InsertSort.binarySort(arr, 0, arr.length);
+            return arr;
+        }
+    },
+
+    INSERT_ADAPTIVE {
+        @Override
+        public int[] sort(int[] arr) {
+            InsertSort.adaptiveSort(arr, 0, arr.length);
+            return arr;
+        }
+    },
+
+    SHELL_SWAP {
+        @Override
+        public int[] sort(int[] arr) {
+            ShellSort.swapSort(arr, 0, arr.length);
+            return arr;
+        }
+    },
+
+    SHELL_INSERT {
+        @Override
+        public int[] sort(int[] arr) {
+            ShellSort.insertSort(arr, 0, arr.length);
+            return arr;
+        }
+    },
+
+    INTRO {
+        @Override
+        public int[] sort(int[] arr) {
+            IntroSort.sortInPlace(arr);
+            return arr;
+        }
+    },
+
+    RADIX {
+        @Override
+        public int[] sort(int[] arr) {
+            RadixSort.sortInPlace(arr);
+            return arr;
+        }
+    },
+
+    SORTS {
+        @Override
+        public int[] sort(int[] arr) {
+            Sorts.sortInPlace(arr);
+            return arr;
+        }
+    },
+
+    /**
+     * 并行排序只提供了返回新数组的方法，拷贝的开销会算进去
+     */
+    PARALLEL {
+        private final ParallelSort parallelSort = new ParallelSort();
+
+        @Override
+        public int[] sort(int[] arr) {
+            return parallelSort.sort(arr);
+        }
+    };
+
+    public abstract int[] sort(int[] arr);
+}
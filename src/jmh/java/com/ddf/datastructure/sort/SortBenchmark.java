@@ -0,0 +1,76 @@
+package com.ddf.datastructure.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 希尔排序以及O(nlogn)、O(n)排序的基准测试，规模从16到1000万
+ *
+ * 每次调用都先把原始数据拷贝到工作数组再排序，拷贝是O(n)的，对所有算法都一样
+ *
+ * 直接运行main方法会执行所有的排序基准测试，并挂上GC分析器，结果中的gc.alloc.rate.norm就是每次排序分配的字节数，
+ * 在原数组上排序的算法这一项应该为0(基数排序的辅助数组和并行排序的结果数组除外)
+ *
+ * @author dongfang.ding
+ * @date 2019/7/9 10:30
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SortBenchmark {
+
+    @Param({"INSERT_ADAPTIVE", "SHELL_SWAP", "SHELL_INSERT", "INTRO", "RADIX", "SORTS", "PARALLEL"})
+    private SortAlgorithm algorithm;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "SAWTOOTH", "FEW_UNIQUE", "ORGAN_PIPE"})
+    private InputDistribution distribution;
+
+    @Param({"16", "256", "4096", "65536", "1048576", "10000000"})
+    private int size;
+
+    private int[] source;
+
+    private int[] work;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SortBenchmark.class.getSimpleName())
+                .include(QuadraticSortBenchmark.class.getSimpleName())
+                .include(SmallSortBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = distribution.generate(size);
+        work = new int[size];
+    }
+
+    @Benchmark
+    public int[] sort() {
+        System.arraycopy(source, 0, work, 0, size);
+        return algorithm.sort(work);
+    }
+}
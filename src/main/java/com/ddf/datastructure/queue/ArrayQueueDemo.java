@@ -1,7 +1,10 @@
 package com.ddf.datastructure.queue;
 
+import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Random;
+import java.util.function.Consumer;
 
 /**
  * 使用数组实现队列
@@ -66,6 +69,19 @@ public class ArrayQueueDemo {
         System.out.println("取出结果: " + queue.get());
         System.out.println("取出结果: " + queue.get());
         System.out.println("==================不报异常的存取==============");
+        System.out.println();
+        System.out.println("==================批量存取==============");
+        ArrayQueue<Integer> batchQueue = new ArrayQueue<>(5);
+        Integer[] src = {1, 2, 3, 4, 5, 6, 7};
+        System.out.println("批量添加数量: " + batchQueue.offerBatch(src, 0, 3));
+        Integer[] dst = new Integer[2];
+        System.out.println("批量取出数量: " + batchQueue.drain(dst) + ", " + Arrays.toString(dst));
+        // 这一批会绕过数组末尾，分两段拷贝
+        System.out.println("批量添加数量: " + batchQueue.offerBatch(src, 3, 4));
+        System.out.println(batchQueue);
+        System.out.print("逐个消费: ");
+        System.out.println("共" + batchQueue.drainTo(e -> System.out.print(e + " "), Integer.MAX_VALUE) + "个");
+        System.out.println("==================批量存取==============");
     }
 }
 
@@ -86,11 +102,27 @@ class ArrayQueue<E> {
     /** 队列中元素的大小 */
     private int count;
 
+    /** 统计数据，为null时不统计 */
+    private final QueueMetrics metrics;
+
+    /** 每个元素存入的时间，与items一一对应，只有统计时才分配 */
+    private final long[] enqueueTimes;
+
     public ArrayQueue(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param maxSize 最大容量
+     * @param metrics 统计数据，为null时不统计，见{@link QueueMetrics}
+     */
+    public ArrayQueue(int maxSize, QueueMetrics metrics) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException();
         }
         this.items = new Object[maxSize];
+        this.metrics = metrics;
+        this.enqueueTimes = metrics == null ? null : new long[maxSize];
     }
 
     /**
@@ -103,6 +135,9 @@ class ArrayQueue<E> {
     public boolean add(E e) {
         // 如果队列已满，则抛出异常
         if (count == items.length) {
+            if (metrics != null) {
+                metrics.onReject();
+            }
             throw new IllegalStateException("Queue full");
         }
         return enqueue(e);
@@ -114,6 +149,9 @@ class ArrayQueue<E> {
      */
     public boolean offer(E e) {
         if (count == items.length) {
+            if (metrics != null) {
+                metrics.onReject();
+            }
             return false;
         }
         return enqueue(e);
@@ -132,6 +170,126 @@ class ArrayQueue<E> {
     }
 
 
+    /**
+     * 批量添加src中[off, off + len)的元素，队列剩余的空间不够时只添加放得下的部分，返回实际添加的个数
+     *
+     * 空闲的位置从putIndex开始，最多绕过数组末尾一次，所以最多分两段用System.arraycopy拷贝，
+     * putIndex和count整批只更新一次，不需要像{@link #offer(Object)}那样每个元素都判断是否已满、是否需要回绕
+     *
+     * @param src 要添加的元素，与offer一样不能包含null
+     * @param off 起始角标
+     * @param len 要添加的个数
+     * @return 实际添加的个数
+     */
+    public int offerBatch(E[] src, int off, int len) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        // null会被get()当作队列为空，拷贝之前先检查，有null时一个都不添加
+        for (int i = off; i < off + len; i++) {
+            Objects.requireNonNull(src[i]);
+        }
+        int n = Math.min(len, items.length - count);
+        if (metrics != null && n < len) {
+            metrics.onReject();
+        }
+        if (n == 0) {
+            return 0;
+        }
+        // 第一段：从putIndex到数组末尾；第二段：绕回到数组开头
+        int first = Math.min(n, items.length - putIndex);
+        System.arraycopy(src, off, items, putIndex, first);
+        System.arraycopy(src, off + first, items, 0, n - first);
+        if (metrics != null) {
+            // 同一批的元素存入时间相同
+            long now = System.nanoTime();
+            Arrays.fill(enqueueTimes, putIndex, putIndex + first, now);
+            Arrays.fill(enqueueTimes, 0, n - first, now);
+        }
+        putIndex = (putIndex + n) % items.length;
+        count += n;
+        if (metrics != null) {
+            metrics.onEnqueue(n, count);
+        }
+        return n;
+    }
+
+    /**
+     * 批量取出元素到dst中，从dst[0]开始依次存放，队列中的元素不够时只取出现有的部分，返回实际取出的个数
+     *
+     * 和{@link #offerBatch(Object[], int, int)}一样最多分两段拷贝，取出后用Arrays.fill清空原位置，takeIndex和count整批只更新一次
+     *
+     * @param dst 存放取出元素的数组，最多取出dst.length个
+     * @return 实际取出的个数
+     */
+    public int drain(E[] dst) {
+        int n = Math.min(dst.length, count);
+        if (n == 0) {
+            return 0;
+        }
+        int first = Math.min(n, items.length - takeIndex);
+        System.arraycopy(items, takeIndex, dst, 0, first);
+        System.arraycopy(items, 0, dst, first, n - first);
+        if (metrics != null) {
+            long now = System.nanoTime();
+            for (int i = takeIndex; i < takeIndex + first; i++) {
+                metrics.onDequeue(now - enqueueTimes[i]);
+            }
+            for (int i = 0; i < n - first; i++) {
+                metrics.onDequeue(now - enqueueTimes[i]);
+            }
+        }
+        Arrays.fill(items, takeIndex, takeIndex + first, null);
+        Arrays.fill(items, 0, n - first, null);
+        takeIndex = (takeIndex + n) % items.length;
+        count -= n;
+        return n;
+    }
+
+    /**
+     * 依次取出最多max个元素交给consumer处理，返回实际取出的个数
+     *
+     * 同样按最多两段连续的区间遍历，循环中不需要判断回绕；takeIndex和count在最后统一更新，
+     * consumer抛出异常时已经交给它的元素算作已取出，异常继续向上抛出，队列仍然是一致的
+     *
+     * @param consumer 处理取出的元素
+     * @param max      最多取出的个数
+     * @return 实际取出的个数
+     */
+    public int drainTo(Consumer<? super E> consumer, int max) {
+        Objects.requireNonNull(consumer);
+        if (max < 0) {
+            throw new IllegalArgumentException("max: " + max);
+        }
+        int n = Math.min(max, count);
+        int first = Math.min(n, items.length - takeIndex);
+        int taken = 0;
+        try {
+            for (int i = takeIndex; i < takeIndex + first; i++) {
+                @SuppressWarnings("unchecked")
+                E e = (E) items[i];
+                items[i] = null;
+                taken++;
+                if (metrics != null) {
+                    metrics.onDequeue(System.nanoTime() - enqueueTimes[i]);
+                }
+                consumer.accept(e);
+            }
+            for (int i = 0; i < n - first; i++) {
+                @SuppressWarnings("unchecked")
+                E e = (E) items[i];
+                items[i] = null;
+                taken++;
+                if (metrics != null) {
+                    metrics.onDequeue(System.nanoTime() - enqueueTimes[i]);
+                }
+                consumer.accept(e);
+            }
+        } finally {
+            takeIndex = (takeIndex + taken) % items.length;
+            count -= taken;
+        }
+        return n;
+    }
+
     /**
      * 将元素加入到队列中
      * 1. 将元素加入到当前数组的添加数据角标位置，然后将角标后移一位，为下次加入数据做好处理；每次成功加入数据，队列大小+1，
@@ -139,10 +297,16 @@ class ArrayQueue<E> {
      * @param e
      */
     private boolean enqueue(E e) {
+        if (metrics != null) {
+            enqueueTimes[putIndex] = System.nanoTime();
+        }
         // 将元素加入指定角标，然后角标后移一位
         items[putIndex++] = e;
         // 队列大小+1
         count ++;
+        if (metrics != null) {
+            metrics.onEnqueue(1, count);
+        }
         // 判断放入元素的角标是否已达到数组的最后一位，如果是最后一位则将放入元素的角标置为0，
         // 避免数组越界，以及可以重复利用数组，达到循环使用的目的
         if (putIndex == items.length) {
@@ -164,6 +328,9 @@ class ArrayQueue<E> {
         E e = (E) items[takeIndex];
         // 将原位置的数据清空
         items[takeIndex] = null;
+        if (metrics != null) {
+            metrics.onDequeue(System.nanoTime() - enqueueTimes[takeIndex]);
+        }
         // 判断下次取数据时的角标是否会越界，如果越界，重新指向[0]角标，形成对数组的环形复用
         if (++takeIndex == items.length) {
             takeIndex = 0;
@@ -0,0 +1,193 @@
+package com.ddf.datastructure.queue;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 支持阻塞存取的有界队列，等待的方式由{@link WaitStrategy}决定
+ *
+ * {@link ArrayQueue}不是线程安全的，阻塞存取只有在多个线程之间才有意义，所以基于{@link MpmcArrayQueue}实现：
+ * 不阻塞的offer/poll仍然是无锁的，只有条件不满足时才交给等待策略：
+ *
+ * 1. put：offer失败(队列已满)时等待队列不满，再重新offer，直到成功；
+ * 2. take：poll失败(队列为空)时等待队列不空，再重新poll，直到成功；
+ * 3. 带超时的offer和poll：同上，只是最多等待指定的时间，超时返回false或者null；
+ * 4. 每次成功存入或取出之后调用{@link WaitStrategy#signalAll()}，需要唤醒的策略借此唤醒等待的线程
+ *
+ * 消费者不再需要自己循环调用get()，等待期间的CPU占用和唤醒延迟可以按部署环境选择策略，见{@link WaitStrategy}
+ *
+ * @author dongfang.ding
+ * @date 2019/7/23 11:05
+ */
+public class BlockingArrayQueue<E> extends MpmcArrayQueue<E> implements BlockingQueue<E> {
+
+    private final WaitStrategy waitStrategy;
+
+    private final BooleanSupplier notFull = () -> size() < capacity();
+
+    private final BooleanSupplier notEmpty = () -> !isEmpty();
+
+    /**
+     * 使用{@link BlockingWaitStrategy}
+     *
+     * @param maxSize 最大容量，会向上取整为2的幂
+     */
+    public BlockingArrayQueue(int maxSize) {
+        this(maxSize, new BlockingWaitStrategy());
+    }
+
+    /**
+     * @param maxSize      最大容量，会向上取整为2的幂
+     * @param waitStrategy 条件不满足时的等待方式
+     */
+    public BlockingArrayQueue(int maxSize, WaitStrategy waitStrategy) {
+        this(maxSize, waitStrategy, null);
+    }
+
+    /**
+     * @param maxSize      最大容量，会向上取整为2的幂
+     * @param waitStrategy 条件不满足时的等待方式
+     * @param metrics      统计数据，为null时不统计；put等待期间的重试不算被拒绝，限时的offer超时才算
+     */
+    public BlockingArrayQueue(int maxSize, WaitStrategy waitStrategy, QueueMetrics metrics) {
+        super(maxSize, metrics);
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        WaitStrategy[] strategies = {new BusySpinWaitStrategy(), new YieldingWaitStrategy(), new ParkingWaitStrategy(),
+                new BlockingWaitStrategy()};
+        int count = 1_000_000;
+        for (WaitStrategy strategy : strategies) {
+            BlockingArrayQueue<Integer> queue = new BlockingArrayQueue<>(1024, strategy);
+            Thread producer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        queue.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "producer");
+            long start = System.currentTimeMillis();
+            producer.start();
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += queue.take();
+            }
+            producer.join();
+            System.out.println(strategy.getClass().getSimpleName() + "传递" + count + "个元素耗时： "
+                    + (System.currentTimeMillis() - start) + "ms，校验和是否正确： " + (sum == (long) count * (count - 1) / 2));
+        }
+        BlockingArrayQueue<Integer> queue = new BlockingArrayQueue<>(2);
+        long start = System.currentTimeMillis();
+        System.out.println("空队列限时取出结果: " + queue.poll(100, TimeUnit.MILLISECONDS) + "，等待"
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (super.offer(e)) {
+            waitStrategy.signalAll();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E poll() {
+        E e = super.poll();
+        if (e != null) {
+            waitStrategy.signalAll();
+        }
+        return e;
+    }
+
+    /**
+     * 存入元素，队列已满时等待，直到存入成功
+     */
+    @Override
+    public void put(E e) throws InterruptedException {
+        while (!enqueue(e)) {
+            waitStrategy.await(notFull, WaitStrategy.FOREVER);
+        }
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * 存入元素，队列已满时最多等待指定的时间，超时返回false
+     */
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        long start = System.nanoTime();
+        while (!enqueue(e)) {
+            long remaining = nanos - (System.nanoTime() - start);
+            if (remaining <= 0 || !waitStrategy.await(notFull, remaining)) {
+                if (metrics != null) {
+                    metrics.onReject();
+                }
+                return false;
+            }
+        }
+        waitStrategy.signalAll();
+        return true;
+    }
+
+    /**
+     * 取出元素，队列为空时等待，直到取出成功
+     */
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null) {
+            waitStrategy.await(notEmpty, WaitStrategy.FOREVER);
+        }
+        return e;
+    }
+
+    /**
+     * 取出元素，队列为空时最多等待指定的时间，超时返回null
+     */
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        long start = System.nanoTime();
+        E e;
+        while ((e = poll()) == null) {
+            long remaining = nanos - (System.nanoTime() - start);
+            if (remaining <= 0 || !waitStrategy.await(notEmpty, remaining)) {
+                return null;
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity() - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+}
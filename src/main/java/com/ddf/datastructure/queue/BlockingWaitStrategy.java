@@ -0,0 +1,69 @@
+package com.ddf.datastructure.queue;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 基于{@link ReentrantLock}和{@link Condition}的等待，条件不满足时挂起，由存取元素的一方通过{@link #signalAll()}唤醒
+ *
+ * 等待期间完全不占CPU，成千上万个消费者线程也没有问题；锁和Condition基于{@link java.util.concurrent.locks.LockSupport#park}实现，
+ * 虚拟线程在这里等待时会卸载，不会像synchronized和Object.wait那样钉住载体线程
+ *
+ * 每次存取之后都会调用signalAll，为了让没有线程等待时的存取不去碰锁，用waiters记录正在等待的线程数：
+ * 等待方在锁内先把waiters加一再检查条件，唤醒方先修改队列再读取waiters，两边都是volatile读写，
+ * 所以要么等待方检查条件时已经能看到修改，要么唤醒方能看到waiters大于0，拿到锁时等待方已经在Condition上了，唤醒不会丢失
+ *
+ * @author dongfang.ding
+ * @date 2019/7/23 10:20
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    /** 正在等待的线程数，只在锁内修改 */
+    private volatile int waiters;
+
+    @Override
+    public boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+        if (ready.getAsBoolean()) {
+            return true;
+        }
+        long remaining = timeoutNanos;
+        lock.lockInterruptibly();
+        try {
+            waiters++;
+            try {
+                while (!ready.getAsBoolean()) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    if (timeoutNanos == FOREVER) {
+                        changed.await();
+                    } else {
+                        remaining = changed.awaitNanos(remaining);
+                    }
+                }
+                return true;
+            } finally {
+                waiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void signalAll() {
+        if (waiters > 0) {
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
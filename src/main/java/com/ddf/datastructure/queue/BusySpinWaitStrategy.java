@@ -0,0 +1,30 @@
+package com.ddf.datastructure.queue;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * 一直自旋等待，不让出CPU
+ *
+ * 条件满足之后几十纳秒内就能感知到，延迟最低，代价是等待期间一直占满一个核；
+ * 线程数超过核数时自旋的线程会抢走生产者(或消费者)的时间片，反而更慢
+ *
+ * @author dongfang.ding
+ * @date 2019/7/23 10:20
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!ready.getAsBoolean()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - start >= timeoutNanos) {
+                return false;
+            }
+            Thread.onSpinWait();
+        }
+        return true;
+    }
+}
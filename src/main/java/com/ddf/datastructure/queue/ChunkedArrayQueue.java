@@ -0,0 +1,305 @@
+package com.ddf.datastructure.queue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 无界队列，由固定大小的数组块(chunk)串成链表，方法与{@link ArrayQueue}相同，非线程安全
+ *
+ * {@link ArrayQueue}的容量在构造时就固定了，存满之后只能抛出异常或者返回false；如果像ArrayList那样满了就把数组扩容一倍再拷贝，
+ * 扩容的那一次要拷贝整个队列，恰好发生在队列积压最严重的时候，延迟的毛刺最大。这里换一种方式增长：
+ *
+ * 1. 存入时当前块写满了，就在尾部再挂一个新块，之前的元素一个也不用动，增长是O(1)的；
+ * 2. 取出时当前块取完了，头部的块就摘下来，清空后放进一个小的空闲链表，下次需要新块时优先复用，
+ *      空闲链表最多保留{@link #MAX_FREE_CHUNKS}个块，多余的交给GC，队列积压消退之后不会一直占着内存；
+ * 3. 队列被取空时，两个角标都回到块的开头，稳定状态下(存取速度相当、积压不超过一个块)始终只使用一个块，不会分配任何对象
+ *
+ * 先进先出的顺序与{@link ArrayQueue}完全相同；与{@link ArrayQueue}一样用null表示队列为空，不能存入null
+ *
+ * @author dongfang.ding
+ * @date 2019/7/22 10:15
+ */
+public class ChunkedArrayQueue<E> {
+
+    /**
+     * 默认的块大小
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    /**
+     * 空闲链表中最多保留的块数
+     */
+    static final int MAX_FREE_CHUNKS = 4;
+
+    /**
+     * 一个数组块，next指向下一个块；在空闲链表中时next指向下一个空闲块
+     */
+    private static final class Chunk {
+
+        final Object[] items;
+
+        Chunk next;
+
+        Chunk(int size) {
+            this.items = new Object[size];
+        }
+    }
+
+    /** 每个块的大小 */
+    private final int chunkSize;
+
+    /** 取数据的块 */
+    private Chunk head;
+
+    /** 存数据的块 */
+    private Chunk tail;
+
+    /** head中取数据的角标 */
+    private int takeIndex;
+
+    /** tail中存数据的角标 */
+    private int putIndex;
+
+    /** 队列中元素的大小 */
+    private int count;
+
+    /** 空闲链表 */
+    private Chunk free;
+
+    /** 空闲链表中块的个数 */
+    private int freeCount;
+
+    public ChunkedArrayQueue() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize 每个块的大小，太小时挂块、摘块过于频繁，太大时空闲链表占用的内存较多
+     */
+    public ChunkedArrayQueue(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.chunkSize = chunkSize;
+        this.head = this.tail = new Chunk(chunkSize);
+    }
+
+    public static void main(String[] args) {
+        ChunkedArrayQueue<Integer> queue = new ChunkedArrayQueue<>(4);
+        System.out.println("==================超过一个块的存取==============");
+        for (int i = 0; i < 10; i++) {
+            queue.add(i);
+        }
+        System.out.println(queue + "， 大小: " + queue.size());
+        for (int i = 0; i < 6; i++) {
+            System.out.print(queue.remove() + " ");
+        }
+        System.out.println();
+        System.out.println(queue + "， 空闲块: " + queue.freeCount);
+        System.out.println("==================超过一个块的存取==============");
+        System.out.println();
+        System.out.println("==================批量存取==============");
+        Integer[] src = {10, 11, 12, 13, 14, 15, 16};
+        System.out.println("批量添加数量: " + queue.offerBatch(src, 0, src.length));
+        Integer[] dst = new Integer[5];
+        System.out.println("批量取出数量: " + queue.drain(dst) + ", " + Arrays.toString(dst));
+        System.out.print("逐个消费: ");
+        System.out.println("共" + queue.drainTo(e -> System.out.print(e + " "), Integer.MAX_VALUE) + "个");
+        System.out.println("取出结果: " + queue.get() + "， 空闲块: " + queue.freeCount);
+        System.out.println("==================批量存取==============");
+    }
+
+    /**
+     * 直接添加，队列是无界的，不会因为队列已满抛出异常
+     */
+    public boolean add(E e) {
+        return offer(e);
+    }
+
+    /**
+     * 将元素加入队列，队列是无界的，总是返回true
+     */
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        if (putIndex == chunkSize) {
+            appendChunk();
+        }
+        tail.items[putIndex++] = e;
+        count++;
+        return true;
+    }
+
+    /**
+     * 批量添加src中[off, off + len)的元素，队列是无界的，总是全部添加；按块分段用System.arraycopy拷贝，计数只更新一次
+     *
+     * @param src 要添加的元素，不能包含null
+     * @param off 起始角标
+     * @param len 要添加的个数
+     * @return 实际添加的个数，即len
+     */
+    public int offerBatch(E[] src, int off, int len) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        // 与offer一样不允许null，拷贝之前先检查，有null时一个都不添加
+        for (int i = off; i < off + len; i++) {
+            Objects.requireNonNull(src[i]);
+        }
+        int copied = 0;
+        while (copied < len) {
+            if (putIndex == chunkSize) {
+                appendChunk();
+            }
+            int n = Math.min(len - copied, chunkSize - putIndex);
+            System.arraycopy(src, off + copied, tail.items, putIndex, n);
+            putIndex += n;
+            copied += n;
+        }
+        count += len;
+        return len;
+    }
+
+    /**
+     * 从队列中取出元素，如果没有元素，则返回null
+     */
+    public E get() {
+        if (count == 0) {
+            return null;
+        }
+        return dequeue();
+    }
+
+    /**
+     * 取出队列的头部元素，如果元素为空，则抛出异常
+     */
+    public E remove() {
+        if (count == 0) {
+            throw new NoSuchElementException();
+        }
+        return dequeue();
+    }
+
+    /**
+     * 批量取出元素到dst中，从dst[0]开始依次存放，按块分段拷贝，返回实际取出的个数
+     *
+     * @param dst 存放取出元素的数组，最多取出dst.length个
+     * @return 实际取出的个数
+     */
+    public int drain(E[] dst) {
+        int total = Math.min(dst.length, count);
+        int copied = 0;
+        while (copied < total) {
+            int n = Math.min(total - copied, chunkSize - takeIndex);
+            Object[] items = head.items;
+            System.arraycopy(items, takeIndex, dst, copied, n);
+            Arrays.fill(items, takeIndex, takeIndex + n, null);
+            takeIndex += n;
+            copied += n;
+            count -= n;
+            afterTake();
+        }
+        return total;
+    }
+
+    /**
+     * 依次取出最多max个元素交给consumer处理，返回实际取出的个数；consumer抛出异常时已经交给它的元素算作已取出
+     *
+     * @param consumer 处理取出的元素
+     * @param max      最多取出的个数
+     * @return 实际取出的个数
+     */
+    public int drainTo(Consumer<? super E> consumer, int max) {
+        Objects.requireNonNull(consumer);
+        if (max < 0) {
+            throw new IllegalArgumentException("max: " + max);
+        }
+        int total = Math.min(max, count);
+        for (int i = 0; i < total; i++) {
+            consumer.accept(dequeue());
+        }
+        return total;
+    }
+
+    /**
+     * 返回队列元素大小
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 取出元素，调用方保证队列不为空
+     */
+    private E dequeue() {
+        Object[] items = head.items;
+        @SuppressWarnings("unchecked")
+        E e = (E) items[takeIndex];
+        items[takeIndex++] = null;
+        count--;
+        afterTake();
+        return e;
+    }
+
+    /**
+     * 取出之后，头部的块取完了就摘下来回收；队列取空时两个角标回到块的开头，继续使用同一个块
+     */
+    private void afterTake() {
+        if (takeIndex == chunkSize && head != tail) {
+            Chunk drained = head;
+            head = head.next;
+            takeIndex = 0;
+            recycle(drained);
+        }
+        if (count == 0) {
+            // 此时head == tail，并且takeIndex == putIndex
+            takeIndex = 0;
+            putIndex = 0;
+        }
+    }
+
+    /**
+     * 尾部的块写满了，挂上一个新块，优先从空闲链表中取
+     */
+    private void appendChunk() {
+        Chunk chunk;
+        if (free != null) {
+            chunk = free;
+            free = chunk.next;
+            chunk.next = null;
+            freeCount--;
+        } else {
+            chunk = new Chunk(chunkSize);
+        }
+        tail.next = chunk;
+        tail = chunk;
+        putIndex = 0;
+    }
+
+    /**
+     * 回收取完的块，块中的元素在取出时已经清空了
+     */
+    private void recycle(Chunk chunk) {
+        if (freeCount < MAX_FREE_CHUNKS) {
+            chunk.next = free;
+            free = chunk;
+            freeCount++;
+        } else {
+            chunk.next = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        Chunk chunk = head;
+        int index = takeIndex;
+        for (int i = 0; i < count; i++) {
+            if (index == chunkSize) {
+                chunk = chunk.next;
+                index = 0;
+            }
+            str.append(chunk.items[index++]).append(" ");
+        }
+        return str.toString();
+    }
+}
@@ -0,0 +1,185 @@
+package com.ddf.datastructure.queue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+
+/**
+ * double类型的数组队列，方法与{@link ArrayQueue}相同，非线程安全
+ *
+ * {@link ArrayQueue}用Object[]存放元素，每存入一个double都要装箱成Double，除了数组中的引用，每个元素还要在堆上多分配一个16字节以上的对象；
+ * 这里直接用double[]存放，存取都不会分配任何对象，数组也更紧凑
+ *
+ * 基本类型没有null，不能再用空槽位判断队列是否为空，所以：
+ * 1. 是否为空只看count，{@link #isEmpty()}、{@link #size()}；
+ * 2. {@link #remove()}在队列为空时抛出异常，{@link #get(double)}在队列为空时返回调用方指定的值，这个值由调用方保证不会出现在队列中
+ *
+ * @author dongfang.ding
+ * @date 2019/7/22 15:20
+ */
+public class DoubleArrayQueue {
+
+    /** 存放队列元素的数组 */
+    private final double[] items;
+
+    /** 取队列数据的角标 */
+    private int takeIndex;
+
+    /** 存入队列时的角标 */
+    private int putIndex;
+
+    /** 队列中元素的大小 */
+    private int count;
+
+    public DoubleArrayQueue(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.items = new double[maxSize];
+    }
+
+    public static void main(String[] args) {
+        DoubleArrayQueue queue = new DoubleArrayQueue(3);
+        System.out.println("添加结果: " + queue.offer(0.5d));
+        System.out.println("添加结果: " + queue.offer(1.5d));
+        System.out.println(queue);
+        System.out.println("取出结果: " + queue.remove());
+        System.out.println("批量添加数量: " + queue.offerBatch(new double[]{0.5d, 1.5d, 2.5d, 3.5d, 4.5d}, 2, 3));
+        System.out.println(queue);
+        double[] dst = new double[4];
+        System.out.println("批量取出数量: " + queue.drain(dst) + ", " + Arrays.toString(dst));
+        System.out.println("队列为空时取出结果: " + queue.get(-1));
+    }
+
+    /**
+     * 直接添加，如果队列已满则抛出异常
+     */
+    public boolean add(double e) {
+        if (count == items.length) {
+            throw new IllegalStateException("Queue full");
+        }
+        enqueue(e);
+        return true;
+    }
+
+    /**
+     * 将元素加入队列，与add不同的是，当队列满时不会抛出异常，而是返回false标识添加失败
+     */
+    public boolean offer(double e) {
+        if (count == items.length) {
+            return false;
+        }
+        enqueue(e);
+        return true;
+    }
+
+    /**
+     * 从队列中取出元素，如果没有元素，则返回emptyValue
+     *
+     * @param emptyValue 队列为空时的返回值，调用方保证它不会作为元素存入队列，否则需要先判断{@link #isEmpty()}
+     * @return
+     */
+    public double get(double emptyValue) {
+        if (count == 0) {
+            return emptyValue;
+        }
+        return dequeue();
+    }
+
+    /**
+     * 取出队列的头部元素，如果元素为空，则抛出异常
+     */
+    public double remove() {
+        if (count == 0) {
+            throw new NoSuchElementException();
+        }
+        return dequeue();
+    }
+
+    /**
+     * 批量添加src中[off, off + len)的元素，队列剩余的空间不够时只添加放得下的部分，返回实际添加的个数；
+     * 与{@link ArrayQueue#offerBatch(Object[], int, int)}一样最多分两段拷贝
+     */
+    public int offerBatch(double[] src, int off, int len) {
+        Objects.checkFromIndexSize(off, len, src.length);
+        int n = Math.min(len, items.length - count);
+        int first = Math.min(n, items.length - putIndex);
+        System.arraycopy(src, off, items, putIndex, first);
+        System.arraycopy(src, off + first, items, 0, n - first);
+        putIndex = (putIndex + n) % items.length;
+        count += n;
+        return n;
+    }
+
+    /**
+     * 批量取出元素到dst中，从dst[0]开始依次存放，返回实际取出的个数；基本类型不需要清空原位置
+     */
+    public int drain(double[] dst) {
+        int n = Math.min(dst.length, count);
+        int first = Math.min(n, items.length - takeIndex);
+        System.arraycopy(items, takeIndex, dst, 0, first);
+        System.arraycopy(items, 0, dst, first, n - first);
+        takeIndex = (takeIndex + n) % items.length;
+        count -= n;
+        return n;
+    }
+
+    /**
+     * 依次取出最多max个元素交给consumer处理，返回实际取出的个数；consumer抛出异常时已经交给它的元素算作已取出
+     */
+    public int drainTo(DoubleConsumer consumer, int max) {
+        Objects.requireNonNull(consumer);
+        if (max < 0) {
+            throw new IllegalArgumentException("max: " + max);
+        }
+        int n = Math.min(max, count);
+        for (int i = 0; i < n; i++) {
+            consumer.accept(dequeue());
+        }
+        return n;
+    }
+
+    private void enqueue(double e) {
+        items[putIndex] = e;
+        if (++putIndex == items.length) {
+            putIndex = 0;
+        }
+        count++;
+    }
+
+    private double dequeue() {
+        double e = items[takeIndex];
+        if (++takeIndex == items.length) {
+            takeIndex = 0;
+        }
+        count--;
+        return e;
+    }
+
+    /**
+     * 返回队列元素大小
+     */
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * 按先进先出的顺序输出队列中的元素
+     */
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0, index = takeIndex; i < count; i++) {
+            str.append(items[index]).append(" ");
+            if (++index == items.length) {
+                index = 0;
+            }
+        }
+        return str.toString();
+    }
+}
@@ -0,0 +1,398 @@
+package com.ddf.datastructure.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 多生产者多消费者的有界无锁队列(Vyukov的有界MPMC队列)，实现了{@link java.util.Queue}，同时保留了{@link ArrayQueue}的get方法
+ *
+ * {@link SpscArrayQueue}的两个角标各自只有一个线程写，多个线程同时存取时就必须用CAS抢角标了，但只抢角标还不够：
+ * 生产者抢到putIndex之后、写入元素之前，消费者可能已经看到了新的putIndex，读到的还是空槽位。这里给每个槽位配一个序号，
+ * 用序号表示槽位当前的状态，序号与角标的差值决定谁可以操作这个槽位：
+ *
+ * 1. 初始时第i个槽位的序号为i；
+ * 2. 生产者读取putIndex为p，槽位的序号等于p说明槽位空着，可以写入，CAS把putIndex改为p + 1抢到这个槽位，写入元素后把序号改为p + 1，
+ *      序号小于p说明这个槽位上一轮的元素还没有被取走，队列已满；序号大于p说明别的生产者已经抢先写入了，重新读取putIndex；
+ * 3. 消费者读取takeIndex为t，槽位的序号等于t + 1说明元素已经写好，CAS把takeIndex改为t + 1抢到这个元素，取走后把序号改为t + capacity，
+ *      也就是下一轮生产者写入这个槽位时的角标；序号小于t + 1说明元素还没有写好，队列为空
+ *
+ * 序号的更新使用release语义，读取使用acquire语义，读到新的序号时一定也能看到之前对槽位的写入；
+ * 每次存取只有一次CAS，没有锁，也不会像{@link java.util.concurrent.ConcurrentLinkedQueue}那样每次存入都分配一个节点
+ *
+ * 和{@link SpscArrayQueue}一样，容量向上取整为2的幂，putIndex和takeIndex分别填充在不同的缓存行中；不允许放入null
+ *
+ * 迭代器是弱一致的：不会抛出ConcurrentModificationException，遍历创建迭代器时已经存入、并且遍历到时还没有被取走的元素，不支持remove
+ *
+ * @author dongfang.ding
+ * @date 2019/7/19 15:30
+ */
+public class MpmcArrayQueue<E> extends MpmcTakeIndexField<E> {
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    /**
+     * @param maxSize 最大容量，会向上取整为2的幂，至少为2
+     */
+    public MpmcArrayQueue(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param maxSize 最大容量，会向上取整为2的幂，至少为2
+     * @param metrics 统计数据，为null时不统计，见{@link QueueMetrics}
+     */
+    public MpmcArrayQueue(int maxSize, QueueMetrics metrics) {
+        super(maxSize, metrics);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        MpmcArrayQueue<Integer> queue = new MpmcArrayQueue<>(1024);
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 1_000_000;
+        long[] sums = new long[consumers];
+        Thread[] threads = new Thread[producers + consumers];
+        for (int i = 0; i < producers; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < perProducer; j++) {
+                    while (!queue.offer(j)) {
+                        Thread.yield();
+                    }
+                }
+            }, "producer-" + i);
+        }
+        for (int i = 0; i < consumers; i++) {
+            int consumer = i;
+            threads[producers + i] = new Thread(() -> {
+                for (int j = 0; j < perProducer * producers / consumers; j++) {
+                    Integer value;
+                    while ((value = queue.get()) == null) {
+                        Thread.yield();
+                    }
+                    sums[consumer] += value;
+                }
+            }, "consumer-" + i);
+        }
+        long start = System.currentTimeMillis();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long sum = 0;
+        for (long s : sums) {
+            sum += s;
+        }
+        System.out.println(producers + "个生产者、" + consumers + "个消费者传递" + (long) producers * perProducer + "个元素耗时： "
+                + (System.currentTimeMillis() - start) + "ms，校验和是否正确： " + (sum == (long) producers * perProducer * (perProducer - 1) / 2));
+    }
+
+    /**
+     * 将元素加入队列，队列满时返回false
+     */
+    @Override
+    public boolean offer(E e) {
+        if (enqueue(e)) {
+            return true;
+        }
+        if (metrics != null) {
+            metrics.onReject();
+        }
+        return false;
+    }
+
+    /**
+     * 存入元素，队列满时返回false，不计入被拒绝的次数，阻塞的存入在等待之前会多次尝试
+     */
+    final boolean enqueue(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long[] sequences = this.sequences;
+        long index = (long) PUT_INDEX.getVolatile(this);
+        while (true) {
+            int offset = (int) index & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, offset);
+            if (sequence == index) {
+                // 槽位空着，抢占角标，失败时witness就是别的生产者更新后的角标
+                long witness = (long) PUT_INDEX.compareAndExchange(this, index, index + 1);
+                if (witness == index) {
+                    items[offset] = e;
+                    if (metrics != null) {
+                        enqueueTimes[offset] = System.nanoTime();
+                    }
+                    SEQUENCE.setRelease(sequences, offset, index + 1);
+                    if (metrics != null) {
+                        metrics.onEnqueue(1, index + 1 - (long) TAKE_INDEX.getVolatile(this));
+                    }
+                    return true;
+                }
+                index = witness;
+            } else if (sequence < index) {
+                // 上一轮的元素还没有被取走，队列已满
+                return false;
+            } else {
+                index = (long) PUT_INDEX.getVolatile(this);
+            }
+        }
+    }
+
+    /**
+     * 从队列中取出元素，如果没有元素，则返回null
+     */
+    @Override
+    public E poll() {
+        long[] sequences = this.sequences;
+        long index = (long) TAKE_INDEX.getVolatile(this);
+        while (true) {
+            int offset = (int) index & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, offset);
+            if (sequence == index + 1) {
+                long witness = (long) TAKE_INDEX.compareAndExchange(this, index, index + 1);
+                if (witness == index) {
+                    @SuppressWarnings("unchecked")
+                    E e = (E) items[offset];
+                    items[offset] = null;
+                    // 存入时间要在槽位交还给生产者之前读取
+                    long enqueueTime = metrics == null ? 0 : enqueueTimes[offset];
+                    // 下一轮生产者写入这个槽位时的角标
+                    SEQUENCE.setRelease(sequences, offset, index + items.length);
+                    if (metrics != null) {
+                        metrics.onDequeue(System.nanoTime() - enqueueTime);
+                    }
+                    return e;
+                }
+                index = witness;
+            } else if (sequence < index + 1) {
+                // 元素还没有写入，队列为空
+                return null;
+            } else {
+                index = (long) TAKE_INDEX.getVolatile(this);
+            }
+        }
+    }
+
+    /**
+     * 与{@link ArrayQueue#get()}相同，等同于{@link #poll()}
+     */
+    public E get() {
+        return poll();
+    }
+
+    /**
+     * 返回队列的头部元素但不取出，队列为空时返回null；并发时返回的元素可能已经被别的消费者取走了
+     */
+    @Override
+    public E peek() {
+        long[] sequences = this.sequences;
+        while (true) {
+            long index = (long) TAKE_INDEX.getVolatile(this);
+            int offset = (int) index & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, offset);
+            if (sequence < index + 1) {
+                return null;
+            }
+            if (sequence == index + 1) {
+                @SuppressWarnings("unchecked")
+                E e = (E) items[offset];
+                // 读取期间元素没有被取走才是有效的
+                if (e != null && (long) TAKE_INDEX.getVolatile(this) == index) {
+                    return e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 返回队列元素大小，并发修改时只是一个近似值，但一定在[0, capacity]之间
+     */
+    @Override
+    public int size() {
+        while (true) {
+            long before = (long) TAKE_INDEX.getVolatile(this);
+            long put = (long) PUT_INDEX.getVolatile(this);
+            long after = (long) TAKE_INDEX.getVolatile(this);
+            if (before == after) {
+                return (int) Math.max(0, Math.min(items.length, put - after));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (long) TAKE_INDEX.getVolatile(this) >= (long) PUT_INDEX.getVolatile(this);
+    }
+
+    /**
+     * 实际容量，为构造时传入的最大容量向上取整后的2的幂
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr((long) TAKE_INDEX.getVolatile(this), (long) PUT_INDEX.getVolatile(this));
+    }
+
+    /**
+     * 弱一致的迭代器，依次检查[takeIndex, putIndex)中的槽位，只返回序号表明元素还在这一轮中的槽位
+     */
+    private class Itr implements Iterator<E> {
+
+        private final long end;
+
+        private long index;
+
+        private E next;
+
+        Itr(long start, long end) {
+            this.index = start;
+            this.end = end;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && index < end) {
+                int offset = (int) index & mask;
+                long sequence = (long) SEQUENCE.getAcquire(sequences, offset);
+                if (sequence == index + 1) {
+                    @SuppressWarnings("unchecked")
+                    E e = (E) items[offset];
+                    // 读取之后再确认一次序号，期间元素被取走并且槽位被下一轮复用时就跳过
+                    if ((long) SEQUENCE.getAcquire(sequences, offset) == index + 1) {
+                        next = e;
+                    }
+                }
+                index++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            E e = next;
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return e;
+        }
+    }
+}
+
+
+/**
+ * 只读的字段：数组、序号和掩码
+ */
+abstract class MpmcFields<E> extends AbstractQueue<E> {
+
+    static final int MAX_CAPACITY = 1 << 30;
+
+    static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** 存放队列元素的数组，长度为2的幂 */
+    final Object[] items;
+
+    /** 每个槽位的序号，与角标比较决定槽位能否写入或者取出 */
+    final long[] sequences;
+
+    /** 角标转换为数组下标的掩码，数组长度 - 1 */
+    final int mask;
+
+    /** 统计数据，为null时不统计 */
+    final QueueMetrics metrics;
+
+    /** 每个槽位中元素存入的时间，只有统计时才分配，随槽位的序号一起发布 */
+    final long[] enqueueTimes;
+
+    MpmcFields(int maxSize, QueueMetrics metrics) {
+        if (maxSize <= 0 || maxSize > MAX_CAPACITY) {
+            throw new IllegalArgumentException();
+        }
+        // 容量为1时存入后序号变为p + 1，与下一轮的角标相同，无法区分满和空，所以至少为2
+        int capacity = maxSize <= 2 ? 2 : Integer.highestOneBit(maxSize - 1) << 1;
+        this.items = new Object[capacity];
+        this.sequences = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences[i] = i;
+        }
+        this.mask = capacity - 1;
+        this.metrics = metrics;
+        this.enqueueTimes = metrics == null ? null : new long[capacity];
+    }
+}
+
+
+abstract class MpmcPad0<E> extends MpmcFields<E> {
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    MpmcPad0(int maxSize, QueueMetrics metrics) {
+        super(maxSize, metrics);
+    }
+}
+
+
+abstract class MpmcPutIndexField<E> extends MpmcPad0<E> {
+
+    static final VarHandle PUT_INDEX;
+
+    static {
+        try {
+            PUT_INDEX = MethodHandles.lookup().findVarHandle(MpmcPutIndexField.class, "putIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 下一个存入元素的角标，生产者之间通过CAS竞争 */
+    volatile long putIndex;
+
+    MpmcPutIndexField(int maxSize, QueueMetrics metrics) {
+        super(maxSize, metrics);
+    }
+}
+
+
+abstract class MpmcPad1<E> extends MpmcPutIndexField<E> {
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    MpmcPad1(int maxSize, QueueMetrics metrics) {
+        super(maxSize, metrics);
+    }
+}
+
+
+abstract class MpmcTakeIndexField<E> extends MpmcPad1<E> {
+
+    static final VarHandle TAKE_INDEX;
+
+    static {
+        try {
+            TAKE_INDEX = MethodHandles.lookup().findVarHandle(MpmcTakeIndexField.class, "takeIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 下一个取出元素的角标，消费者之间通过CAS竞争 */
+    volatile long takeIndex;
+
+    MpmcTakeIndexField(int maxSize, QueueMetrics metrics) {
+        super(maxSize, metrics);
+    }
+}
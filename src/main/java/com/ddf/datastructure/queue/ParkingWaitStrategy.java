@@ -0,0 +1,52 @@
+package com.ddf.datastructure.queue;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 每次检查条件不满足时，用{@link LockSupport#parkNanos(Object, long)}休眠一小段时间后再检查
+ *
+ * 不需要另一方唤醒，存取时也就没有任何额外开销；CPU占用很低，延迟大约是park的时长加上操作系统的调度延迟(通常几十微秒起)
+ *
+ * @author dongfang.ding
+ * @date 2019/7/23 10:20
+ */
+public class ParkingWaitStrategy implements WaitStrategy {
+
+    /**
+     * 默认每次park的纳秒数
+     */
+    public static final long DEFAULT_PARK_NANOS = 50_000L;
+
+    private final long parkNanos;
+
+    public ParkingWaitStrategy() {
+        this(DEFAULT_PARK_NANOS);
+    }
+
+    /**
+     * @param parkNanos 每次park的纳秒数
+     */
+    public ParkingWaitStrategy(long parkNanos) {
+        if (parkNanos <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.parkNanos = parkNanos;
+    }
+
+    @Override
+    public boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!ready.getAsBoolean()) {
+            long remaining = timeoutNanos - (System.nanoTime() - start);
+            if (remaining <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(this, Math.min(parkNanos, remaining));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+}
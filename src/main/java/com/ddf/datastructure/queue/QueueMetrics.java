@@ -0,0 +1,324 @@
+package com.ddf.datastructure.queue;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 队列的统计数据：存取次数和速率、被拒绝的存入次数、元素个数的最高水位，以及每个元素在队列中停留时间(sojourn time)的直方图
+ *
+ * 构造队列时传入才会统计，不传时队列中只多了一次null判断，没有任何计数、取时间和额外的数组，所以可以一直编译在生产代码里，
+ * 需要排查时再打开；打开后的开销：
+ *
+ * 1. 计数用{@link LongAdder}，多个线程同时存取时分散在不同的单元格中累加，不会争抢同一个缓存行，读取时才求和；
+ * 2. 最高水位大多数时候只是一次读取，只有超过当前值时才CAS更新；
+ * 3. 停留时间需要记下每个元素存入的时间，队列额外分配一个与容量相同的long[]，每次存取各调用一次{@link System#nanoTime()}；
+ * 4. 直方图与HdrHistogram的分桶方式相同(对数-线性)：按最高位分成若干段，每段再线性地分成{@link #SUB_BUCKETS} / 2个桶，
+ *      任何值的相对误差都不超过2/{@link #SUB_BUCKETS}(1/16)，覆盖long的全部范围只要九百多个桶；
+ *      直方图同样按线程分成几份(stripe)，不同的线程落在不同的数组上，读取百分位时合并
+ *
+ * 一个QueueMetrics只能给一个队列使用；通过{@link #register(String)}注册到平台的MBeanServer后，可以在JConsole等工具中查看
+ *
+ * @author dongfang.ding
+ * @date 2019/7/25 10:40
+ */
+public final class QueueMetrics implements QueueMetricsMXBean {
+
+    /**
+     * 每段线性分桶的位数
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * 每段的桶数，最小的一段[0, SUB_BUCKETS)每个值一个桶，之后每段的桶数为它的一半
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >>> 1;
+
+    /**
+     * 桶的总数，最大的值为Long.MAX_VALUE
+     */
+    static final int BUCKETS = bucketIndex(Long.MAX_VALUE) + 1;
+
+    /**
+     * 直方图的份数，2的幂，不超过处理器数的两倍
+     */
+    private static final int STRIPES = Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2));
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder dequeued = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder sojournTotal = new LongAdder();
+
+    private final AtomicLong highWaterMark = new AtomicLong();
+
+    private final AtomicLong sojournMax = new AtomicLong();
+
+    private final AtomicLongArray[] histograms = new AtomicLongArray[STRIPES];
+
+    private final RateSampler enqueueRate = new RateSampler();
+
+    private final RateSampler dequeueRate = new RateSampler();
+
+    private ObjectName objectName;
+
+    public QueueMetrics() {
+        for (int i = 0; i < STRIPES; i++) {
+            histograms[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    public static void main(String[] args) {
+        QueueMetrics metrics = new QueueMetrics();
+        MpmcArrayQueue<Integer> queue = new MpmcArrayQueue<>(4, metrics);
+        for (int i = 0; i < 6; i++) {
+            queue.offer(i);
+        }
+        for (int i = 0; i < 3; i++) {
+            queue.poll();
+        }
+        System.out.println(metrics);
+        ObjectName name = metrics.register("demo");
+        System.out.println("已注册到JMX: " + name);
+        metrics.unregister();
+    }
+
+    /**
+     * 注册到平台的MBeanServer，ObjectName为com.ddf.datastructure.queue:type=QueueMetrics,name=队列名
+     *
+     * @param queueName 队列名，同一个JVM中不能重复
+     * @return 注册使用的ObjectName
+     */
+    public synchronized ObjectName register(String queueName) {
+        if (objectName != null) {
+            throw new IllegalStateException("已经注册为" + objectName);
+        }
+        try {
+            ObjectName name = new ObjectName(QueueMetrics.class.getPackageName() + ":type=QueueMetrics,name="
+                    + ObjectName.quote(queueName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+            return name;
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        } catch (InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 从平台的MBeanServer中注销，没有注册时什么都不做
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    /**
+     * 存入了count个元素，存入后队列中的元素个数为size
+     */
+    void onEnqueue(int count, long size) {
+        enqueued.add(count);
+        long mark = highWaterMark.get();
+        if (size > mark) {
+            highWaterMark.accumulateAndGet(size, Math::max);
+        }
+    }
+
+    void onReject() {
+        rejected.increment();
+    }
+
+    /**
+     * 取出了一个元素，它在队列中停留了sojournNanos纳秒
+     */
+    void onDequeue(long sojournNanos) {
+        long value = Math.max(0, sojournNanos);
+        dequeued.increment();
+        sojournTotal.add(value);
+        histograms[(int) Thread.currentThread().getId() & (STRIPES - 1)].getAndIncrement(bucketIndex(value));
+        long max = sojournMax.get();
+        if (value > max) {
+            sojournMax.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    @Override
+    public long getEnqueued() {
+        return enqueued.sum();
+    }
+
+    @Override
+    public long getDequeued() {
+        return dequeued.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    @Override
+    public double getEnqueueRate() {
+        return enqueueRate.sample(getEnqueued());
+    }
+
+    @Override
+    public double getDequeueRate() {
+        return dequeueRate.sample(getDequeued());
+    }
+
+    @Override
+    public double getSojournMeanNanos() {
+        long count = getDequeued();
+        return count == 0 ? 0 : (double) sojournTotal.sum() / count;
+    }
+
+    @Override
+    public long getSojournP50Nanos() {
+        return sojournPercentile(0.5);
+    }
+
+    @Override
+    public long getSojournP90Nanos() {
+        return sojournPercentile(0.9);
+    }
+
+    @Override
+    public long getSojournP99Nanos() {
+        return sojournPercentile(0.99);
+    }
+
+    @Override
+    public long getSojournP999Nanos() {
+        return sojournPercentile(0.999);
+    }
+
+    @Override
+    public long getSojournMaxNanos() {
+        return sojournMax.get();
+    }
+
+    /**
+     * 停留时间的百分位，返回所在桶的上界，与真实值的相对误差不超过2/{@link #SUB_BUCKETS}(1/16)，也不会超过最大值
+     *
+     * @param percentile 0到1之间
+     */
+    public long sojournPercentile(double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile: " + percentile);
+        }
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray histogram : histograms) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = histogram.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), getSojournMaxNanos());
+            }
+        }
+        return getSojournMaxNanos();
+    }
+
+    @Override
+    public void reset() {
+        enqueued.reset();
+        dequeued.reset();
+        rejected.reset();
+        sojournTotal.reset();
+        highWaterMark.set(0);
+        sojournMax.set(0);
+        for (AtomicLongArray histogram : histograms) {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * value所在的桶：小于SUB_BUCKETS的值每个值一个桶；更大的值按最高位分段，每段取最高的SUB_BUCKET_BITS位，
+     * 其中最高位一定是1，所以每段只有SUB_BUCKETS / 2个桶
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * 桶中最大的值，最后一个桶为Long.MAX_VALUE
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long sub = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        // 不能写成((sub + 1) << shift) - 1，最后一个桶的(sub + 1) << shift超出了long的范围
+        long upper = (sub << shift) + ((1L << shift) - 1);
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueMetrics{enqueued=" + getEnqueued() + ", dequeued=" + getDequeued() + ", rejected=" + getRejected()
+                + ", highWaterMark=" + getHighWaterMark() + ", sojournP50=" + getSojournP50Nanos() + "ns, sojournP99="
+                + getSojournP99Nanos() + "ns, sojournMax=" + getSojournMaxNanos() + "ns}";
+    }
+
+    /**
+     * 记录上一次读取的计数和时间，计算两次读取之间的速率
+     */
+    private static final class RateSampler {
+
+        private long lastCount;
+
+        private long lastNanos = System.nanoTime();
+
+        synchronized double sample(long count) {
+            long now = System.nanoTime();
+            long elapsed = Math.max(1, now - lastNanos);
+            double rate = (count - lastCount) * 1e9 / elapsed;
+            lastCount = count;
+            lastNanos = now;
+            return rate;
+        }
+    }
+}
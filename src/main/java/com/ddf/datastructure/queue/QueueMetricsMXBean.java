@@ -0,0 +1,50 @@
+package com.ddf.datastructure.queue;
+
+/**
+ * 通过JMX暴露的队列统计数据，见{@link QueueMetrics}
+ *
+ * 时间单位都是纳秒，速率的单位是每秒；两个速率都是与上一次读取同一个属性之间的平均值，第一次读取时是从创建开始的平均值
+ *
+ * @author dongfang.ding
+ * @date 2019/7/25 10:40
+ */
+public interface QueueMetricsMXBean {
+
+    long getEnqueued();
+
+    long getDequeued();
+
+    /**
+     * 队列已满被拒绝的存入次数，包括offer返回false和add抛出异常
+     */
+    long getRejected();
+
+    /**
+     * 队列中同时存在的元素个数的最大值
+     */
+    long getHighWaterMark();
+
+    double getEnqueueRate();
+
+    double getDequeueRate();
+
+    /**
+     * 元素在队列中停留的时间(从存入到取出)的平均值
+     */
+    double getSojournMeanNanos();
+
+    long getSojournP50Nanos();
+
+    long getSojournP90Nanos();
+
+    long getSojournP99Nanos();
+
+    long getSojournP999Nanos();
+
+    long getSojournMaxNanos();
+
+    /**
+     * 清空所有统计数据
+     */
+    void reset();
+}
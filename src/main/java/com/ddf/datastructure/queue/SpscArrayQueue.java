@@ -0,0 +1,279 @@
+package com.ddf.datastructure.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.NoSuchElementException;
+
+/**
+ * 单生产者单消费者的无锁环形队列，方法与{@link ArrayQueue}相同
+ *
+ * 只有一个线程调用add/offer，并且只有一个线程调用get/remove/peek时才是线程安全的，这是流水线中两个线程之间传递消息最常见的场景；
+ * 给{@link ArrayQueue}加synchronized虽然也能用，但每次存取都要竞争同一把锁，吞吐量会低一两个数量级。这里的做法：
+ *
+ * 1. 容量向上取整为2的幂，角标不再回绕，而是一直递增的long(按每秒10亿次计算，要几百年才会溢出)，数组下标用index & mask得到，
+ *      不需要ArrayQueue中的判断回绕，也不需要count：队列大小就是putIndex - takeIndex，两个角标各自只有一个线程写；
+ * 2. 生产者写入元素后用release语义更新putIndex，消费者用acquire语义读取putIndex，读到新的putIndex时一定也能看到之前写入的元素，
+ *      反过来消费者清空槽位后用release语义更新takeIndex，生产者读到之后才会覆盖这个槽位；整个过程没有锁也没有CAS，
+ *      release/acquire在x86上只是普通的读写，只是不允许编译器重排序；
+ * 3. 生产者缓存一份消费者的角标，只有按缓存的角标判断队列已满时，才去重新读取真实的takeIndex，消费者同样缓存一份生产者的角标，
+ *      队列不满也不空时两个线程基本只读写自己的缓存行；
+ * 4. 两个角标(连同各自的缓存)之间、与对象中其它字段之间都填充了128字节，避免两个线程频繁写的字段落在同一个缓存行中(伪共享)，
+ *      128字节是因为相邻缓存行预取会同时加载两个缓存行；字段的填充通过继承实现，父类的字段一定排在子类的字段之前，
+ *      而同一个类中的字段JVM会按大小重新排列，直接写在一个类里没法保证顺序
+ *
+ * 与{@link ArrayQueue}一样不允许放入null，null用来表示队列为空
+ *
+ * @author dongfang.ding
+ * @date 2019/7/19 10:05
+ */
+public class SpscArrayQueue<E> extends SpscConsumerFields<E> {
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    /**
+     * @param maxSize 最大容量，会向上取整为2的幂
+     */
+    public SpscArrayQueue(int maxSize) {
+        super(maxSize);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(1 << 14);
+        int count = 100_000_000;
+        Integer[] values = new Integer[256];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                Integer value = values[i & (values.length - 1)];
+                while (!queue.offer(value)) {
+                    Thread.onSpinWait();
+                }
+            }
+        }, "producer");
+        long start = System.nanoTime();
+        producer.start();
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            Integer value;
+            while ((value = queue.get()) == null) {
+                Thread.onSpinWait();
+            }
+            sum += value;
+        }
+        producer.join();
+        long elapsed = System.nanoTime() - start;
+        System.out.println("两个线程之间传递" + count + "个元素耗时： " + elapsed / 1_000_000 + "ms，每秒" + count * 1000L / elapsed
+                + "百万次，校验和： " + sum);
+    }
+
+    /**
+     * 直接添加，如果队列已满则抛出异常，只能由生产者线程调用
+     */
+    public boolean add(E e) {
+        if (!offer(e)) {
+            throw new IllegalStateException("Queue full");
+        }
+        return true;
+    }
+
+    /**
+     * 将元素加入队列，队列满时返回false，只能由生产者线程调用
+     */
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long index = putIndex;
+        if (index >= putLimit) {
+            // 按缓存的角标已经满了，重新读取消费者的角标
+            putLimit = (long) TAKE_INDEX.getAcquire(this) + items.length;
+            if (index >= putLimit) {
+                return false;
+            }
+        }
+        items[(int) index & mask] = e;
+        PUT_INDEX.setRelease(this, index + 1);
+        return true;
+    }
+
+    /**
+     * 从队列中取出元素，如果没有元素，则返回null，只能由消费者线程调用
+     */
+    public E get() {
+        long index = takeIndex;
+        if (index >= takeLimit) {
+            // 按缓存的角标已经空了，重新读取生产者的角标
+            takeLimit = (long) PUT_INDEX.getAcquire(this);
+            if (index >= takeLimit) {
+                return null;
+            }
+        }
+        int offset = (int) index & mask;
+        @SuppressWarnings("unchecked")
+        E e = (E) items[offset];
+        items[offset] = null;
+        TAKE_INDEX.setRelease(this, index + 1);
+        return e;
+    }
+
+    /**
+     * 取出队列的头部元素，如果元素为空，则抛出异常，只能由消费者线程调用
+     */
+    public E remove() {
+        E e = get();
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+    /**
+     * 返回队列的头部元素但不取出，队列为空时返回null，只能由消费者线程调用
+     */
+    public E peek() {
+        long index = takeIndex;
+        if (index >= takeLimit) {
+            takeLimit = (long) PUT_INDEX.getAcquire(this);
+            if (index >= takeLimit) {
+                return null;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        E e = (E) items[(int) index & mask];
+        return e;
+    }
+
+    /**
+     * 返回队列元素大小，任何线程都可以调用，并发修改时只是一个近似值，但一定在[0, capacity]之间
+     */
+    public int size() {
+        while (true) {
+            long before = (long) TAKE_INDEX.getAcquire(this);
+            long put = (long) PUT_INDEX.getAcquire(this);
+            long after = (long) TAKE_INDEX.getAcquire(this);
+            // 两次读到的takeIndex相同，说明读取putIndex期间消费者没有取走元素
+            if (before == after) {
+                return (int) (put - after);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 实际容量，为构造时传入的最大容量向上取整后的2的幂
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    @Override
+    public String toString() {
+        return "SpscArrayQueue{size=" + size() + ", capacity=" + capacity() + "}";
+    }
+}
+
+
+/**
+ * 只读的字段：数组和掩码，两个线程都会读，不会修改
+ */
+abstract class SpscFields<E> {
+
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /** 存放队列元素的数组，长度为2的幂 */
+    final Object[] items;
+
+    /** 角标转换为数组下标的掩码，数组长度 - 1 */
+    final int mask;
+
+    SpscFields(int maxSize) {
+        if (maxSize <= 0 || maxSize > MAX_CAPACITY) {
+            throw new IllegalArgumentException();
+        }
+        int capacity = maxSize == 1 ? 1 : Integer.highestOneBit(maxSize - 1) << 1;
+        this.items = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+}
+
+
+abstract class SpscPad0<E> extends SpscFields<E> {
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    SpscPad0(int maxSize) {
+        super(maxSize);
+    }
+}
+
+
+/**
+ * 生产者读写的字段
+ */
+abstract class SpscProducerFields<E> extends SpscPad0<E> {
+
+    static final VarHandle PUT_INDEX;
+
+    static {
+        try {
+            PUT_INDEX = MethodHandles.lookup().findVarHandle(SpscProducerFields.class, "putIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 下一个存入元素的角标，只有生产者写，消费者通过PUT_INDEX以acquire语义读取 */
+    long putIndex;
+
+    /** 消费者角标的缓存 + 容量，putIndex小于它时队列一定不满 */
+    long putLimit;
+
+    SpscProducerFields(int maxSize) {
+        super(maxSize);
+    }
+}
+
+
+abstract class SpscPad1<E> extends SpscProducerFields<E> {
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    SpscPad1(int maxSize) {
+        super(maxSize);
+    }
+}
+
+
+/**
+ * 消费者读写的字段
+ */
+abstract class SpscConsumerFields<E> extends SpscPad1<E> {
+
+    static final VarHandle TAKE_INDEX;
+
+    static {
+        try {
+            TAKE_INDEX = MethodHandles.lookup().findVarHandle(SpscConsumerFields.class, "takeIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 下一个取出元素的角标，只有消费者写，生产者通过TAKE_INDEX以acquire语义读取 */
+    long takeIndex;
+
+    /** 生产者角标的缓存，takeIndex小于它时队列一定不空 */
+    long takeLimit;
+
+    SpscConsumerFields(int maxSize) {
+        super(maxSize);
+    }
+}
@@ -0,0 +1,363 @@
+package com.ddf.datastructure.queue;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分层的哈希时间轮，添加和取消定时任务都是O(1)的，非线程安全
+ *
+ * 用{@link java.util.PriorityQueue}(或者{@link java.util.concurrent.ScheduledThreadPoolExecutor}中的堆)管理定时任务，
+ * 每次添加和取消都是O(logn)，超时任务有几百万个、而且绝大多数在到期前就被取消(比如请求的超时)时，堆的维护就成了主要的开销。
+ * 时间轮和{@link ArrayQueue}一样是一个循环使用的数组，只是角标不再由存取推动，而是由时间推动：
+ *
+ * 1. 时间被切分成固定长度的tick，第0层轮子有wheelSize个槽位，到期时间为第t个tick的任务放在第t & (wheelSize - 1)个槽位里，
+ *      每个槽位是一个双向链表，添加只是追加到链表末尾，取消只是从链表中摘下来，都是O(1)；
+ * 2. 第0层只能表示wheelSize个tick以内的任务，更远的任务放到上层的轮子里，第L层的一个槽位代表wheelSize^L个tick，
+ *      槽位按(t >>> (L * log2(wheelSize))) & (wheelSize - 1)计算，上层的轮子在用到时才创建，long范围内的延迟都能表示；
+ * 3. 每推进一个tick，先看上层的轮子：时间恰好走到第L层一个槽位的开头时，把这个槽位中的任务按剩余时间重新放到下层(降级)，
+ *      再把第0层当前槽位的整个链表一次摘下来，依次执行其中的任务，一个tick内到期的任务是一批处理的
+ *
+ * 任务的到期时间按tick向上取整，最多晚一个tick执行，不会提前执行；任务在推进时间的线程中同步执行，执行时间长的任务应该交给别的线程池。
+ * 添加、取消和推进时间都需要在同一个线程中进行，一般是一个事件循环线程定期调用{@link #advance()}
+ *
+ * @author dongfang.ding
+ * @date 2019/7/24 10:30
+ */
+public class TimingWheel {
+
+    /**
+     * 默认每层的槽位数
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 64;
+
+    /**
+     * 一个定时任务，同时也是槽位中双向链表的节点
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private final TimingWheel wheel;
+
+        private final Runnable task;
+
+        /** 到期的tick */
+        private final long deadline;
+
+        private int state;
+
+        /** 所在的槽位，不在任何槽位中时为null */
+        private Bucket bucket;
+
+        private Timeout prev;
+
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务，O(1)；已经执行过或者已经取消过时返回false
+         */
+        public boolean cancel() {
+            if (state != PENDING) {
+                return false;
+            }
+            state = CANCELLED;
+            wheel.pending--;
+            // 正在执行的一批中的任务已经从槽位中摘下来了，bucket为null，只需要标记为取消，执行到它时会跳过
+            if (bucket != null) {
+                bucket.remove(this);
+            }
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        public Runnable task() {
+            return task;
+        }
+    }
+
+    /**
+     * 一个槽位，双向链表
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        /**
+         * 把整个链表摘下来，返回原来的头节点，链表中的节点仍然通过next相连
+         */
+        Timeout detach() {
+            Timeout first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+
+    /** 每个tick的纳秒数 */
+    private final long tickNanos;
+
+    /** 每层的槽位数，2的幂 */
+    private final int wheelSize;
+
+    private final int mask;
+
+    /** log2(wheelSize)，第L层的槽位按到期tick右移L * bits位计算 */
+    private final int bits;
+
+    /** 时间轮的起始时间，tick从这里开始计算 */
+    private final long startNanos;
+
+    /** 每一层的轮子，上层在用到时才创建 */
+    private Bucket[][] levels;
+
+    /** 已经处理过的最后一个tick */
+    private long currentTick;
+
+    /** 等待中的任务数 */
+    private int pending;
+
+    public TimingWheel(long tickDuration, TimeUnit unit) {
+        this(tickDuration, unit, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param tickDuration 每个tick的时长，也是任务到期时间的精度
+     * @param unit         tickDuration的单位
+     * @param wheelSize    每层的槽位数，会向上取整为2的幂
+     */
+    public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+        this(tickDuration, unit, wheelSize, System.nanoTime());
+    }
+
+    /**
+     * @param startNanos 起始时间，与{@link System#nanoTime()}的含义相同，之后所有的时间都相对它计算
+     */
+    TimingWheel(long tickDuration, TimeUnit unit, int wheelSize, long startNanos) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        if (tickNanos <= 0 || wheelSize <= 1 || wheelSize > 1 << 16) {
+            throw new IllegalArgumentException();
+        }
+        this.wheelSize = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.mask = this.wheelSize - 1;
+        this.bits = Integer.numberOfTrailingZeros(this.wheelSize);
+        this.startNanos = startNanos;
+        this.levels = new Bucket[][]{newLevel()};
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 8);
+        long start = System.nanoTime();
+        long[] delays = {30, 5, 120, 700, 1500};
+        for (long delay : delays) {
+            wheel.schedule(() -> System.out.println("延迟" + delay + "ms的任务实际执行于" + (System.nanoTime() - start) / 1_000_000 + "ms"),
+                    delay, TimeUnit.MILLISECONDS);
+        }
+        Timeout cancelled = wheel.schedule(() -> System.out.println("不会执行"), 200, TimeUnit.MILLISECONDS);
+        System.out.println("取消结果: " + cancelled.cancel() + "，等待中的任务数: " + wheel.size());
+        // 事件循环：每个tick推进一次
+        while (wheel.size() > 0) {
+            Thread.sleep(10);
+            wheel.advance();
+        }
+    }
+
+    /**
+     * 添加一个延迟执行的任务，O(1)
+     *
+     * @param task  任务，在推进时间的线程中执行
+     * @param delay 延迟
+     * @param unit  延迟的单位
+     * @return 可以用来取消任务
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long delayNanos = Math.max(0, unit.toNanos(delay));
+        long elapsed = System.nanoTime() - startNanos;
+        // 到期时间相对起始时间计算，超出long范围时取最大值，与ScheduledThreadPoolExecutor一样不会溢出成负数而立即执行
+        long deadlineNanos = elapsed > 0 && delayNanos > Long.MAX_VALUE - elapsed ? Long.MAX_VALUE : elapsed + delayNanos;
+        return scheduleElapsed(task, deadlineNanos);
+    }
+
+    /**
+     * 添加一个在指定时间执行的任务，时间与{@link System#nanoTime()}的含义相同
+     */
+    Timeout scheduleAt(Runnable task, long deadlineNanos) {
+        return scheduleElapsed(task, deadlineNanos - startNanos);
+    }
+
+    /**
+     * 添加一个在起始时间之后elapsed纳秒执行的任务
+     */
+    private Timeout scheduleElapsed(Runnable task, long elapsed) {
+        Objects.requireNonNull(task);
+        // 向上取整，保证不会提前执行；已经过了处理进度的任务放到下一个tick
+        long deadline = elapsed <= 0 ? 0 : (elapsed - 1) / tickNanos + 1;
+        Timeout timeout = new Timeout(this, task, Math.max(deadline, currentTick + 1));
+        place(timeout);
+        pending++;
+        return timeout;
+    }
+
+    /**
+     * 推进到当前时间，执行所有到期的任务
+     *
+     * @return 执行的任务数
+     */
+    public int advance() {
+        return advanceTo(System.nanoTime());
+    }
+
+    /**
+     * 推进到指定的时间，时间与{@link System#nanoTime()}的含义相同；逐个tick处理，每个tick到期的任务作为一批执行
+     *
+     * 任务抛出的异常不会中断这一批中剩下的任务，全部执行完之后抛出第一个异常，其余的作为suppressed附加在上面
+     *
+     * @return 执行的任务数
+     */
+    public int advanceTo(long nowNanos) {
+        long target = Math.floorDiv(nowNanos - startNanos, tickNanos);
+        int expired = 0;
+        RuntimeException failure = null;
+        while (currentTick < target) {
+            long tick = ++currentTick;
+            cascade(tick);
+            Timeout first = levels[0][(int) tick & mask].detach();
+            // 先让这一批全部脱离槽位，执行中的任务取消同一批后面的任务时，只会标记为取消，不会改动链表
+            for (Timeout timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+            }
+            Timeout timeout = first;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                if (timeout.state == Timeout.CANCELLED) {
+                    timeout = next;
+                    continue;
+                }
+                timeout.state = Timeout.EXPIRED;
+                pending--;
+                expired++;
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+                timeout = next;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 等待中的任务数
+     */
+    public int size() {
+        return pending;
+    }
+
+    /**
+     * 当前已经创建的层数
+     */
+    int levelCount() {
+        return levels.length;
+    }
+
+    /**
+     * 时间走到第L层一个槽位的开头时，把这个槽位中的任务按剩余时间重新放到下层；
+     * 低位全为0的层才需要处理，第L层不需要处理时更上层也一定不需要
+     */
+    private void cascade(long tick) {
+        for (int level = 1; level < levels.length; level++) {
+            int shift = level * bits;
+            if ((tick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            Timeout timeout = levels[level][(int) (tick >>> shift) & mask].detach();
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * 按剩余的tick数选择层：剩余不足wheelSize^(L+1)个tick的放在第L层，层不够时创建上层的轮子
+     */
+    private void place(Timeout timeout) {
+        long remaining = timeout.deadline - currentTick;
+        // 降级时可能恰好在当前tick到期，remaining为0，放进第0层随后就要执行的当前槽位
+        int level = remaining == 0 ? 0 : (63 - Long.numberOfLeadingZeros(remaining)) / bits;
+        if (level >= levels.length) {
+            Bucket[][] grown = new Bucket[level + 1][];
+            System.arraycopy(levels, 0, grown, 0, levels.length);
+            for (int i = levels.length; i <= level; i++) {
+                grown[i] = newLevel();
+            }
+            levels = grown;
+        }
+        levels[level][(int) (timeout.deadline >>> (level * bits)) & mask].add(timeout);
+    }
+
+    private Bucket[] newLevel() {
+        Bucket[] buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket();
+        }
+        return buckets;
+    }
+}
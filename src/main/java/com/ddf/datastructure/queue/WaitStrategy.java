@@ -0,0 +1,43 @@
+package com.ddf.datastructure.queue;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * 阻塞队列在条件不满足(队列满时存入、队列空时取出)时的等待方式
+ *
+ * 等待方式决定了延迟和CPU占用之间的取舍，不同的部署环境适合不同的方式，所以把等待抽象出来，由{@link BlockingArrayQueue}在构造时传入：
+ *
+ * 1. {@link BusySpinWaitStrategy}     一直自旋，延迟最低，但等待期间一直占满一个核，只适合线程数不超过核数、绑核运行的场景；
+ * 2. {@link YieldingWaitStrategy}     先自旋若干次，之后每次让出CPU，延迟略高，CPU仍然会被占用，但不会饿死别的线程；
+ * 3. {@link ParkingWaitStrategy}      每次检查之后park一小段时间，CPU占用很低，延迟取决于park的时长，不需要唤醒；
+ * 4. {@link BlockingWaitStrategy}     基于{@link java.util.concurrent.locks.ReentrantLock}和Condition，条件变化时由另一方唤醒，
+ *      等待期间完全不占CPU，适合大量消费者线程；没有用synchronized和Object.wait，虚拟线程等待时不会钉住(pin)载体线程
+ *
+ * 实现需要保证：等待期间线程被中断时抛出InterruptedException；{@link #signalAll()}可能在每次存取之后都被调用，必须足够便宜
+ *
+ * @author dongfang.ding
+ * @date 2019/7/23 10:20
+ */
+public interface WaitStrategy {
+
+    /**
+     * 不限时等待时传入的超时时间
+     */
+    long FOREVER = Long.MAX_VALUE;
+
+    /**
+     * 等待直到ready返回true或者超时
+     *
+     * @param ready        等待的条件，可能被调用多次，不能有副作用
+     * @param timeoutNanos 最长等待的纳秒数，{@link #FOREVER}表示不限时
+     * @return 条件满足返回true，超时返回false
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException;
+
+    /**
+     * 队列的状态发生了变化(存入或者取出了元素)，唤醒正在等待的线程；不需要唤醒的等待方式什么都不用做
+     */
+    default void signalAll() {
+    }
+}
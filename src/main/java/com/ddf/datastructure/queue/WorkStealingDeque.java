@@ -0,0 +1,203 @@
+package com.ddf.datastructure.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Chase-Lev工作窃取双端队列，容量不够时自动扩容
+ *
+ * 工作窃取调度中每个工作线程有一个自己的双端队列：自己产生的任务从底部(bottom)压入、从底部弹出，和{@link com.ddf.datastructure.stack.ArrayStackDemo}
+ * 中的栈一样是后进先出，刚产生的任务数据还在缓存中；空闲的线程从别人的顶部(top)窃取，和{@link ArrayQueue}一样是先进先出，
+ * 窃取到的通常是最早产生、粒度最大的任务。两端的角标都是一直递增的long，数组下标用index & mask得到：
+ *
+ * 1. push：只有拥有者调用，写入bottom位置后用release语义把bottom加一，窃取者读到新的bottom时一定能看到写入的元素；
+ *      数组满时拥有者把[top, bottom)拷贝到两倍大的新数组，再用release语义发布新数组，不需要通知任何人；
+ * 2. pop：只有拥有者调用，先把bottom减一，再读取top，两步之间需要一个完整的内存屏障(StoreLoad)，
+ *      保证与窃取者之间不会同时认为自己拿到了同一个元素；top小于bottom时元素只属于拥有者，直接取走，
+ *      top等于bottom说明只剩最后一个元素，和窃取者一起CAS top，谁成功归谁；
+ * 3. steal：任何线程都可以调用，读取top，完整的内存屏障，读取bottom，top小于bottom时读出元素，再CAS top，失败说明被别人抢先了
+ *
+ * 窃取者之间只竞争top的一次CAS，拥有者只在剩最后一个元素时才参与竞争，没有任何锁，线程再多也不会有全局的竞争点。
+ * 内存顺序的写法参考Lê等人的论文《Correct and Efficient Work-Stealing for Weak Memory Models》，用{@link VarHandle}实现
+ *
+ * 被窃取走的槽位不会立即清空(窃取者CAS top之后，拥有者可能已经往同一个槽位写入了新元素，清空会误删)，等拥有者下一轮写入时覆盖，
+ * 所以最多会多引用一个数组长度的已完成任务；拥有者弹出的槽位会立即清空
+ *
+ * 不允许放入null，pop和steal返回null表示没有取到
+ *
+ * @author dongfang.ding
+ * @date 2019/7/26 10:15
+ */
+public class WorkStealingDeque<E> {
+
+    private static final VarHandle TOP;
+
+    private static final VarHandle BOTTOM;
+
+    private static final VarHandle ARRAY;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TOP = lookup.findVarHandle(WorkStealingDeque.class, "top", long.class);
+            BOTTOM = lookup.findVarHandle(WorkStealingDeque.class, "bottom", long.class);
+            ARRAY = lookup.findVarHandle(WorkStealingDeque.class, "array", Object[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 默认的初始容量
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * 最大容量
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    /** 窃取端的角标，窃取者之间通过CAS竞争 */
+    private volatile long top;
+
+    long q00, q01, q02, q03, q04, q05, q06, q07;
+    long q10, q11, q12, q13, q14, q15, q16;
+
+    /** 拥有者一端的角标，只有拥有者写 */
+    private long bottom;
+
+    /** 存放元素的数组，长度为2的幂，扩容时整体替换 */
+    private Object[] array;
+
+    public WorkStealingDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity 初始容量，会向上取整为2的幂
+     */
+    public WorkStealingDeque(int initialCapacity) {
+        if (initialCapacity <= 0 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException();
+        }
+        int capacity = initialCapacity == 1 ? 1 : Integer.highestOneBit(initialCapacity - 1) << 1;
+        this.array = new Object[capacity];
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>(2);
+        for (int i = 0; i < 5; i++) {
+            deque.push(i);
+        }
+        System.out.println("拥有者弹出(后进先出): " + deque.pop());
+        System.out.println("窃取(先进先出): " + deque.steal());
+        int[] stolen = new int[1];
+        Thread thief = new Thread(() -> {
+            while (deque.steal() != null) {
+                stolen[0]++;
+            }
+        });
+        thief.start();
+        thief.join();
+        System.out.println("另一个线程窃取了" + stolen[0] + "个，剩余: " + deque.size());
+    }
+
+    /**
+     * 从底部压入元素，只能由拥有者调用
+     */
+    public void push(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long b = bottom;
+        long t = (long) TOP.getAcquire(this);
+        Object[] a = array;
+        if (b - t >= a.length) {
+            a = grow(a, t, b);
+        }
+        a[(int) b & (a.length - 1)] = e;
+        // 发布元素：窃取者读到新的bottom时一定能看到上面的写入
+        BOTTOM.setRelease(this, b + 1);
+    }
+
+    /**
+     * 从底部弹出元素，后进先出，只能由拥有者调用；队列为空或者最后一个元素被窃取者抢走时返回null
+     */
+    public E pop() {
+        long b = bottom - 1;
+        Object[] a = array;
+        // volatile写和随后的volatile读之间不会重排序，相当于两步之间有一个完整的内存屏障
+        BOTTOM.setVolatile(this, b);
+        long t = top;
+        if (t > b) {
+            // 已经空了，恢复bottom
+            BOTTOM.setOpaque(this, b + 1);
+            return null;
+        }
+        int index = (int) b & (a.length - 1);
+        @SuppressWarnings("unchecked")
+        E e = (E) a[index];
+        if (t == b) {
+            // 最后一个元素，与窃取者竞争
+            boolean won = TOP.compareAndSet(this, t, t + 1);
+            BOTTOM.setOpaque(this, b + 1);
+            if (!won) {
+                return null;
+            }
+        }
+        // top小于b时窃取者不可能再读到这个槽位，t == b时CAS成功也一样，可以清空
+        a[index] = null;
+        return e;
+    }
+
+    /**
+     * 从顶部窃取元素，先进先出，任何线程都可以调用；队列为空或者与别的线程竞争失败时返回null
+     */
+    public E steal() {
+        long t = (long) TOP.getAcquire(this);
+        VarHandle.fullFence();
+        long b = (long) BOTTOM.getAcquire(this);
+        if (t >= b) {
+            return null;
+        }
+        // 在bottom之后读取数组：读到的bottom如果包含扩容之后压入的元素，就一定能读到新数组
+        Object[] a = (Object[]) ARRAY.getAcquire(this);
+        @SuppressWarnings("unchecked")
+        E e = (E) a[(int) t & (a.length - 1)];
+        if (!TOP.compareAndSet(this, t, t + 1)) {
+            return null;
+        }
+        return e;
+    }
+
+    /**
+     * 元素个数，并发修改时只是一个近似值
+     */
+    public int size() {
+        long b = (long) BOTTOM.getOpaque(this);
+        long t = top;
+        return (int) Math.max(0, b - t);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 扩容为两倍，只有拥有者调用；旧数组中[t, b)的元素保持不动，还没看到新数组的窃取者读旧数组也是正确的
+     */
+    private Object[] grow(Object[] old, long t, long b) {
+        if (old.length >= MAX_CAPACITY) {
+            throw new IllegalStateException("Deque full");
+        }
+        Object[] a = new Object[old.length << 1];
+        for (long i = t; i < b; i++) {
+            a[(int) i & (a.length - 1)] = old[(int) i & (old.length - 1)];
+        }
+        ARRAY.setRelease(this, a);
+        return a;
+    }
+}
@@ -0,0 +1,334 @@
+package com.ddf.datastructure.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于{@link WorkStealingDeque}的简易fork-join调度器
+ *
+ * 每个工作线程拥有一个工作窃取双端队列：
+ *
+ * 1. 任务在工作线程中fork出的子任务压入自己队列的底部，自己总是从底部取任务执行(后进先出，深度优先，数据在缓存中)；
+ * 2. 自己的队列空了先看外部提交的任务，再随机挑选别的工作线程，从它队列的顶部窃取(先进先出，拿到的是粒度最大的任务)；
+ * 3. join等待的子任务还没有完成时，等待的线程不会闲着，而是继续执行自己队列中的任务或者去窃取，直到子任务完成(helping join)；
+ * 4. 到处都没有任务时短暂自旋，之后park一小段时间再重试，空闲时几乎不占CPU
+ *
+ * 工作线程之间只在窃取时竞争某一个队列的top，外部提交使用无锁的{@link ConcurrentLinkedQueue}，整个调度器没有全局的锁，
+ * 工作线程数增加时窃取分散在不同的队列上
+ *
+ * 与{@link java.util.concurrent.ForkJoinPool}相比，这里没有补偿线程、没有按需唤醒，join的等待链很深时递归也会更深，只用于演示和测试工作窃取队列
+ *
+ * @author dongfang.ding
+ * @date 2019/7/26 14:30
+ */
+public class WorkStealingScheduler {
+
+    /**
+     * 空闲时每次park的纳秒数
+     */
+    private static final long IDLE_PARK_NANOS = 50_000L;
+
+    /**
+     * 开始park之前自旋尝试的次数
+     */
+    private static final int IDLE_SPINS = 64;
+
+    /**
+     * 可以fork和join的任务
+     *
+     * @param <V> 任务的结果
+     */
+    public abstract static class Task<V> {
+
+        private static final VarHandle WAITERS;
+
+        static {
+            try {
+                WAITERS = MethodHandles.lookup().findVarHandle(Task.class, "waiters", WaitNode.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile boolean done;
+
+        private V result;
+
+        private Throwable failure;
+
+        /** 在工作线程之外等待结果的线程，可能有多个，CAS压入的无锁栈，完成时全部唤醒 */
+        private volatile WaitNode waiters;
+
+        /**
+         * 任务的计算逻辑，其中可以fork子任务并join它们的结果
+         */
+        protected abstract V compute();
+
+        /**
+         * 在当前工作线程的队列中异步执行，只能在调度器的工作线程中调用
+         */
+        public final Task<V> fork() {
+            Thread thread = Thread.currentThread();
+            if (!(thread instanceof Worker)) {
+                throw new IllegalStateException("fork只能在工作线程中调用");
+            }
+            ((Worker) thread).deque.push(this);
+            return this;
+        }
+
+        /**
+         * 等待任务完成并返回结果；在工作线程中等待时会继续执行别的任务，在外部线程中则挂起等待
+         */
+        public final V join() {
+            if (!done) {
+                Thread thread = Thread.currentThread();
+                if (thread instanceof Worker) {
+                    ((Worker) thread).helpUntilDone(this);
+                } else {
+                    awaitDone(thread);
+                }
+            }
+            if (failure != null) {
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw new IllegalStateException(failure);
+            }
+            return result;
+        }
+
+        public final boolean isDone() {
+            return done;
+        }
+
+        /**
+         * 外部线程压入等待栈后挂起，直到任务完成；压入发生在run()取走栈之后也没关系，那时done已经为true，不会挂起
+         */
+        private void awaitDone(Thread thread) {
+            WaitNode node = new WaitNode(thread);
+            WaitNode head;
+            do {
+                if (done) {
+                    return;
+                }
+                head = waiters;
+                node.next = head;
+            } while (!WAITERS.compareAndSet(this, head, node));
+            while (!done) {
+                LockSupport.park(this);
+            }
+        }
+
+        final void run() {
+            try {
+                result = compute();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            // done是volatile写，之前对result和failure的写入对读到done的线程可见
+            done = true;
+            // 取走整个等待栈，唤醒所有等待的外部线程
+            for (WaitNode node = (WaitNode) WAITERS.getAndSet(this, null); node != null; node = node.next) {
+                LockSupport.unpark(node.thread);
+            }
+        }
+    }
+
+    /**
+     * 等待任务完成的外部线程
+     */
+    private static final class WaitNode {
+
+        final Thread thread;
+
+        WaitNode next;
+
+        WaitNode(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * 工作线程
+     */
+    private final class Worker extends Thread {
+
+        final WorkStealingDeque<Task<?>> deque = new WorkStealingDeque<>();
+
+        Worker(int id) {
+            super("work-stealing-" + id);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (running) {
+                Task<?> task = findTask();
+                if (task != null) {
+                    idle = 0;
+                    task.run();
+                } else if (++idle < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        /**
+         * 执行别的任务，直到target完成
+         */
+        void helpUntilDone(Task<?> target) {
+            int idle = 0;
+            while (!target.done) {
+                Task<?> task = findTask();
+                if (task != null) {
+                    idle = 0;
+                    task.run();
+                } else if (++idle < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         * 依次从自己的队列、外部提交的队列、别的工作线程的队列中找任务
+         */
+        private Task<?> findTask() {
+            Task<?> task = deque.pop();
+            if (task != null) {
+                return task;
+            }
+            task = submissions.poll();
+            if (task != null) {
+                return task;
+            }
+            return stealFromOthers();
+        }
+
+        /**
+         * 从随机的位置开始，把别的工作线程都试一遍
+         */
+        private Task<?> stealFromOthers() {
+            int n = workers.length;
+            int start = ThreadLocalRandom.current().nextInt(n);
+            for (int i = 0; i < n; i++) {
+                Worker victim = workers[(start + i) % n];
+                if (victim != this) {
+                    Task<?> task = victim.deque.steal();
+                    if (task != null) {
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Worker[] workers;
+
+    /** 外部线程提交的任务 */
+    private final ConcurrentLinkedQueue<Task<?>> submissions = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+
+    public WorkStealingScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism 工作线程数
+     */
+    public WorkStealingScheduler(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException();
+        }
+        workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    public static void main(String[] args) {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler();
+        int n = 32;
+        long start = System.currentTimeMillis();
+        long result = scheduler.invoke(new Fibonacci(n));
+        System.out.println("fib(" + n + ") = " + result + "，工作线程数: " + scheduler.parallelism() + "，耗时： "
+                + (System.currentTimeMillis() - start) + "ms");
+        scheduler.shutdown();
+    }
+
+    /**
+     * 演示用的任务：递归计算斐波那契数，小于阈值时直接串行计算
+     */
+    private static final class Fibonacci extends Task<Long> {
+
+        private static final int SEQUENTIAL_THRESHOLD = 16;
+
+        private final int n;
+
+        Fibonacci(int n) {
+            this.n = n;
+        }
+
+        @Override
+        protected Long compute() {
+            if (n < SEQUENTIAL_THRESHOLD) {
+                return sequential(n);
+            }
+            Fibonacci left = new Fibonacci(n - 1);
+            left.fork();
+            long right = new Fibonacci(n - 2).compute();
+            return left.join() + right;
+        }
+
+        private static long sequential(int n) {
+            return n < 2 ? n : sequential(n - 1) + sequential(n - 2);
+        }
+    }
+
+    /**
+     * 从外部提交任务，异步执行
+     */
+    public <V> Task<V> submit(Task<V> task) {
+        if (!running) {
+            throw new IllegalStateException("调度器已关闭");
+        }
+        submissions.offer(task);
+        return task;
+    }
+
+    /**
+     * 提交任务并等待结果
+     */
+    public <V> V invoke(Task<V> task) {
+        return submit(task).join();
+    }
+
+    public int parallelism() {
+        return workers.length;
+    }
+
+    /**
+     * 关闭调度器，工作线程执行完手头的任务后退出，队列中剩下的任务不再执行
+     */
+    public void shutdown() {
+        running = false;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.ddf.datastructure.queue;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * 先自旋，自旋一定次数后条件仍不满足时，每次检查之后调用{@link Thread#yield()}让出CPU
+ *
+ * 短暂的等待在自旋阶段就结束了，延迟和{@link BusySpinWaitStrategy}差不多；等待时间较长时让出CPU，其它线程还能得到运行的机会，
+ * 但没有别的线程可运行时yield会立即返回，CPU占用依然很高
+ *
+ * @author dongfang.ding
+ * @date 2019/7/23 10:20
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    /**
+     * 默认的自旋次数
+     */
+    public static final int DEFAULT_SPIN_TRIES = 100;
+
+    private final int spinTries;
+
+    public YieldingWaitStrategy() {
+        this(DEFAULT_SPIN_TRIES);
+    }
+
+    /**
+     * @param spinTries 开始让出CPU之前自旋的次数
+     */
+    public YieldingWaitStrategy(int spinTries) {
+        if (spinTries < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.spinTries = spinTries;
+    }
+
+    @Override
+    public boolean await(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        int tries = 0;
+        while (!ready.getAsBoolean()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - start >= timeoutNanos) {
+                return false;
+            }
+            if (tries < spinTries) {
+                tries++;
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return true;
+    }
+}
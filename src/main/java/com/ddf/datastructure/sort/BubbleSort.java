@@ -1,6 +1,7 @@
 package com.ddf.datastructure.sort;
 
 import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * 冒泡排序
@@ -41,6 +42,57 @@ public class BubbleSort {
         int[] dest = new int[arr.length];
         // 不改变原数组
         System.arraycopy(arr, 0, dest, 0, dest.length);
+        int count = bubble(dest, 0, dest.length);
+        System.out.println("共循环次数： " + count);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(int[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，区间外的元素不受影响，不会产生任何额外的数组拷贝，也不会打印循环次数
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(int[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        bubble(dest, from, to);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，并将本次排序的比较、交换次数上报给监听器
+     *
+     * @param dest
+     * @param from    起始角标(包含)
+     * @param to      结束角标(不包含)
+     * @param metrics 监听器，为null时与{@link #sort(int[], int, int)}完全一样
+     */
+    public static void sort(int[] dest, int from, int to, SortMetrics metrics) {
+        if (metrics == null) {
+            sort(dest, from, to);
+            return;
+        }
+        Objects.checkFromToIndex(from, to, dest.length);
+        SortCounter counter = new SortCounter();
+        bubble(dest, from, to, counter);
+        counter.report(metrics, "BubbleSort", to - from);
+    }
+
+    /**
+     * 对[from, to)区间冒泡排序
+     *
+     * @return 内层循环的次数
+     */
+    private static int bubble(int[] dest, int from, int to) {
         int temp;
         int count = 0;
         // 在发生交换的时候会改变该值，在内循环结束时如果该值未改变，则说明没有发生交换，则可以说明数组已经有序了
@@ -48,10 +100,10 @@ public class BubbleSort {
         // 循环数组元素个长度，用来完成所有元素的最终位置的排序，内层循环一遍只可以确定一个元素；而由于确定元素位置是两两比较，
         // 两个元素只需要确定一个元素，最终那个元素的位置自然也是正确的，三个元素只需要两两比较替换两次，所以最终
         // 最外层完成所有元素的定位只需要数组长度 - 1即可
-        for (int i = 0; i < dest.length - 1; i ++) {
+        for (int i = from; i < to - 1; i ++) {
             // i每增一次，就完成了一个元素的排序，则下一次的元素排序就少确定一次，因为没必要再和之前已经排好序的元素进行比较
-            // 因为元素是从前往后确定的，所以j每次还是要初始为0，只是内层少循环已经确定过的元素个数次,这会极大减少循环次数，不减i也可以，多循环就是了
-            for (int j = 0; j < dest.length - 1 - i; j ++) {
+            // 因为元素是从前往后确定的，所以j每次还是要初始为区间起始位置，只是内层少循环已经确定过的元素个数次,这会极大减少循环次数，不减i也可以，多循环就是了
+            for (int j = from; j < to - 1 - (i - from); j ++) {
                 count ++;
                 if (dest[j] > dest[j + 1]) {
                     temp = dest[j];
@@ -66,7 +118,31 @@ public class BubbleSort {
                 swap = false;
             }
         }
-        System.out.println("共循环次数： " + count);
-        return dest;
+        return count;
+    }
+
+    /**
+     * 与{@link #bubble(int[], int, int)}逻辑一致，额外统计比较和交换次数
+     */
+    private static void bubble(int[] dest, int from, int to, SortCounter counter) {
+        int temp;
+        boolean swap = false;
+        for (int i = from; i < to - 1; i ++) {
+            for (int j = from; j < to - 1 - (i - from); j ++) {
+                counter.comparisons ++;
+                if (dest[j] > dest[j + 1]) {
+                    temp = dest[j];
+                    dest[j] = dest[j + 1];
+                    dest[j + 1] = temp;
+                    counter.swaps ++;
+                    swap = true;
+                }
+            }
+            if (!swap) {
+                break;
+            } else {
+                swap = false;
+            }
+        }
     }
 }
@@ -0,0 +1,92 @@
+package com.ddf.datastructure.sort;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 计数排序
+ *
+ * 先找出区间中的最小值min和最大值max，准备一个长度为max - min + 1的计数数组，统计每个值出现的次数，
+ * 然后按值从小到大依次把每个值写回count次，不需要任何比较
+ *
+ * 时间复杂度O(n + k)，空间复杂度O(k)，k = max - min + 1为值域的大小，所以只适合值域不大的数据，
+ * 比如年龄、状态码、百分比这一类值，值域远大于元素个数时计数数组本身就比原数组还大，超过{@link #MAX_RANGE}时直接抛出异常
+ *
+ * @author dongfang.ding
+ * @date 2019/7/17 9:45
+ */
+public class CountingSort {
+
+    /**
+     * 允许的最大值域，计数数组最多占用4MB
+     */
+    public static final int MAX_RANGE = 1 << 20;
+
+    public static void main(String[] args) {
+        int[] arr = {3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5, -2};
+        int[] sort = sort(arr);
+        System.out.println("排序前： " + Arrays.toString(arr));
+        System.out.println("排序后： " + Arrays.toString(sort));
+    }
+
+    public static int[] sort(int[] arr) {
+        // 拷贝数组，不改变原数组的值
+        int[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，结果写回原数组，但需要一个值域大小的计数数组
+     *
+     * @param arr
+     */
+    public static void sortInPlace(int[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，值域超过{@link #MAX_RANGE}时抛出IllegalArgumentException
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(int[] arr, int from, int to) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        if (to - from < 2) {
+            return;
+        }
+        int min = arr[from];
+        int max = arr[from];
+        for (int i = from + 1; i < to; i++) {
+            int val = arr[i];
+            if (val < min) {
+                min = val;
+            } else if (val > max) {
+                max = val;
+            }
+        }
+        if ((long) max - min >= MAX_RANGE) {
+            throw new IllegalArgumentException("值域过大: [" + min + ", " + max + "]");
+        }
+        sort(arr, from, to, min, max);
+    }
+
+    /**
+     * 已知最小值和最大值时直接排序，调用方负责保证区间中的值都在[min, max]中并且值域不超过{@link #MAX_RANGE}
+     */
+    static void sort(int[] arr, int from, int to, int min, int max) {
+        int[] counts = new int[max - min + 1];
+        for (int i = from; i < to; i++) {
+            counts[arr[i] - min]++;
+        }
+        int k = from;
+        for (int i = 0; i < counts.length; i++) {
+            int val = i + min;
+            for (int count = counts[i]; count > 0; count--) {
+                arr[k++] = val;
+            }
+        }
+    }
+}
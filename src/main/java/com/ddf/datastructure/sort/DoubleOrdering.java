@@ -0,0 +1,69 @@
+package com.ddf.datastructure.sort;
+
+/**
+ * double[]排序时对NaN和-0.0的处理，排序结果与{@link Double#compare(double, double)}的顺序一致：
+ * -0.0排在0.0前面，NaN比所有数(包括正无穷)都大，排在最后
+ *
+ * 直接用 < 比较double时，-0.0 < 0.0 和 0.0 < -0.0 都是false，NaN与任何数比较都是false，排序结果就乱了；
+ * 而每次比较都改用{@link Double#compare(double, double)}又要多做好几次判断，所以和{@link java.util.Arrays#sort(double[])}一样分三步：
+ *
+ * 1. 排序前扫描一遍，把NaN都交换到区间末尾，把-0.0都改成0.0并记下个数；
+ * 2. 剩下的区间里没有NaN也没有-0.0了，直接用 < 比较排序；
+ * 3. 排序后二分查找第一个0.0的位置，把前面记下个数的0.0改回-0.0
+ *
+ * 额外的开销只有前后两次O(n)的扫描
+ *
+ * @author dongfang.ding
+ * @date 2019/7/15 11:02
+ */
+final class DoubleOrdering {
+
+    /**
+     * 对不含NaN和-0.0的[from, to)区间排序，可以直接用 < 比较
+     */
+    @FunctionalInterface
+    interface RangeSorter {
+
+        void sort(double[] arr, int from, int to);
+    }
+
+    private DoubleOrdering() {
+    }
+
+    /**
+     * 调用方负责检查角标
+     */
+    static void sort(double[] arr, int from, int to, RangeSorter sorter) {
+        int end = to;
+        int negativeZeros = 0;
+        // 从后往前扫描，换到当前位置的元素都是已经扫描过的，不会漏掉
+        for (int i = to - 1; i >= from; i--) {
+            double val = arr[i];
+            if (val != val) {
+                arr[i] = arr[--end];
+                arr[end] = val;
+            } else if (val == 0.0d && Double.doubleToRawLongBits(val) < 0) {
+                arr[i] = 0.0d;
+                negativeZeros++;
+            }
+        }
+        sorter.sort(arr, from, end);
+        if (negativeZeros == 0) {
+            return;
+        }
+        // 找到第一个0.0，从这里开始的negativeZeros个改回-0.0
+        int lo = from;
+        int hi = end;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (arr[mid] < 0.0d) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        for (int i = lo; i < lo + negativeZeros; i++) {
+            arr[i] = -0.0d;
+        }
+    }
+}
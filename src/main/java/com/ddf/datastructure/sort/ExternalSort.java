@@ -0,0 +1,479 @@
+package com.ddf.datastructure.sort;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 外部排序(多路归并)
+ *
+ * 包中其它的排序都要求数据能全部放进堆内存的数组中，数据量超过堆大小时就需要借助磁盘，分两个阶段完成：
+ *
+ * 1. 生成顺串(run)：每次从输入文件中读取runSize个元素到数组中，使用{@link RadixSort}排好序之后写到一个临时文件中，
+ *      这样输入文件就被切分成了若干个各自有序的临时文件；
+ * 2. 多路归并：每次最多取fanIn个顺串，同时从每个顺串的头部读取元素，每次取出所有顺串头部中最小的那个写到结果中，
+ *      这样合并出来的结果也是有序的；如果顺串的个数超过fanIn，则合并成更少更长的顺串，再继续下一趟归并，直到只剩一个；
+ *
+ *      从k个顺串的头部中找最小值，如果每次都挨个比较需要k-1次，这里使用败者树(一种锦标赛树)：叶子节点是每个顺串，
+ *      内部节点记录两个子树比赛的败者，胜者继续往上比，根节点之上记录最终的胜者(最小值)；取走胜者之后，胜者所在的顺串补上下一个元素，
+ *      只需要沿着这个叶子到根的路径重新比赛一遍即可，每次只需要log2(k)次比较
+ *
+ * 文件读写都通过{@link FileChannel#map}映射到内存，由操作系统负责换页，数据不经过堆；文件就是连续存放的int或long，没有任何头信息，
+ * 字节序默认为大端，与{@link java.io.DataOutputStream}写出的一致
+ *
+ * 生成顺串时堆中需要一个runSize大小的数组，以及基数排序的一个同样大小的辅助数组，设置runSize时要考虑这一点；
+ * 归并阶段每个顺串只映射一个窗口，不占用堆内存
+ *
+ * @author dongfang.ding
+ * @date 2019/7/8 15:42
+ */
+public class ExternalSort {
+
+    /**
+     * 文件中元素的类型
+     */
+    public enum ElementType {
+        /**
+         * 4个字节的int
+         */
+        INT(Integer.BYTES),
+
+        /**
+         * 8个字节的long
+         */
+        LONG(Long.BYTES);
+
+        private final int bytes;
+
+        ElementType(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public int bytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * 默认每个顺串的元素个数
+     */
+    public static final int DEFAULT_RUN_SIZE = 1 << 24;
+
+    /**
+     * 默认每趟归并最多同时合并的顺串个数
+     */
+    public static final int DEFAULT_FAN_IN = 64;
+
+    /**
+     * 归并时每个顺串每次映射的字节数
+     */
+    private static final int WINDOW_BYTES = 1 << 22;
+
+    private final ElementType type;
+
+    private final ByteOrder order;
+
+    private final int runSize;
+
+    private final int fanIn;
+
+    private final Path tempDir;
+
+    public static void main(String[] args) throws IOException {
+        Path input = Files.createTempFile("external-sort-input-", ".bin");
+        Path output = Files.createTempFile("external-sort-output-", ".bin");
+        int count = 5_000_000;
+        Random random = new Random();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            IntBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) count * Integer.BYTES).asIntBuffer();
+            for (int i = 0; i < count; i++) {
+                buffer.put(random.nextInt());
+            }
+        }
+        // 故意把顺串设置得比较小，演示多趟归并
+        ExternalSort externalSort = new ExternalSort(ElementType.INT, ByteOrder.BIG_ENDIAN, 1 << 18, 4,
+                Paths.get(System.getProperty("java.io.tmpdir")));
+        long start = System.currentTimeMillis();
+        externalSort.sort(input, output);
+        System.out.println("排序耗时： " + (System.currentTimeMillis() - start) + "ms");
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.READ)) {
+            IntBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+            boolean sorted = buffer.remaining() == count;
+            for (int i = 1; sorted && i < buffer.limit(); i++) {
+                sorted = buffer.get(i - 1) <= buffer.get(i);
+            }
+            System.out.println("排序结果是否正确： " + sorted);
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * 使用默认的顺串大小、归并路数，临时文件放在系统临时目录中
+     *
+     * @param type 文件中元素的类型
+     */
+    public ExternalSort(ElementType type) {
+        this(type, ByteOrder.BIG_ENDIAN, DEFAULT_RUN_SIZE, DEFAULT_FAN_IN, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param type    文件中元素的类型
+     * @param order   文件的字节序
+     * @param runSize 每个顺串的元素个数，决定了生成顺串时占用的堆内存
+     * @param fanIn   每趟归并最多同时合并的顺串个数，至少为2
+     * @param tempDir 存放顺串临时文件的目录
+     */
+    public ExternalSort(ElementType type, ByteOrder order, int runSize, int fanIn, Path tempDir) {
+        // 一个顺串需要一次性映射，映射的大小不能超过2G
+        if (runSize <= 0 || (long) runSize * type.bytes() > Integer.MAX_VALUE || fanIn < 2) {
+            throw new IllegalArgumentException();
+        }
+        this.type = type;
+        this.order = order;
+        this.runSize = runSize;
+        this.fanIn = fanIn;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 对输入文件排序，结果写入输出文件，输出文件已存在时会被覆盖，输入文件不会被修改；输入和输出不能是同一个文件
+     *
+     * @param input  输入文件
+     * @param output 输出文件
+     * @throws IOException
+     */
+    public void sort(Path input, Path output) throws IOException {
+        sort(input, output, (SortCounter) null);
+    }
+
+    /**
+     * 对输入文件排序，并把比较、移动次数和耗时报告给metrics，metrics为null时与{@link #sort(Path, Path)}完全一样；
+     * 移动次数包括生成顺串时基数排序的移动，以及每一趟归并写出的元素个数，比较次数为败者树中的比赛次数，
+     * 文件读写本身不计入移动次数
+     *
+     * @param input   输入文件
+     * @param output  输出文件
+     * @param metrics 统计结果的接收者，可以为null
+     * @throws IOException
+     */
+    public void sort(Path input, Path output, SortMetrics metrics) throws IOException {
+        if (metrics == null) {
+            sort(input, output);
+            return;
+        }
+        SortCounter counter = new SortCounter();
+        long count = sort(input, output, counter);
+        counter.report(metrics, "ExternalSort", (int) Math.min(count, Integer.MAX_VALUE));
+    }
+
+    /**
+     * counter不为null时统计，计数都是在每个顺串、每次归并完成后直接算出来的，不统计时读写的循环中没有任何额外的判断
+     *
+     * @return 元素总个数
+     */
+    private long sort(Path input, Path output, SortCounter counter) throws IOException {
+        // 只有一个顺串时输出文件会在输入文件还映射着的时候被截断，同一个文件会被清零，而且输入文件不能被修改
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("输入文件和输出文件不能是同一个文件: " + input);
+        }
+        List<Path> runs = new ArrayList<>();
+        try {
+            long count = createRuns(input, output, runs, counter);
+            // 只有一个顺串时已经直接写到输出文件中了
+            while (runs.size() > 1) {
+                List<Path> merged = new ArrayList<>();
+                // 剩余的顺串一趟就能合并完，直接合并到输出文件中
+                boolean last = runs.size() <= fanIn;
+                try {
+                    for (int i = 0; i < runs.size(); i += fanIn) {
+                        List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                        Path target = last ? output : Files.createTempFile(tempDir, "run-", ".bin");
+                        if (!last) {
+                            merged.add(target);
+                        }
+                        merge(group, target, counter);
+                    }
+                    for (Path run : runs) {
+                        Files.deleteIfExists(run);
+                    }
+                } catch (Throwable e) {
+                    // 本趟生成的顺串还没有放进runs，finally中删不到，失败时在这里删除
+                    deleteAll(merged, e);
+                    throw e;
+                }
+                runs = merged;
+            }
+            if (count == 0) {
+                Files.newByteChannel(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING).close();
+            }
+            return count;
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * 删除文件，删除失败的异常附加到cause上，不覆盖原来的异常
+     */
+    private static void deleteAll(List<Path> paths, Throwable cause) {
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                cause.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * 生成顺串，只有一个顺串时直接写到输出文件中
+     *
+     * @return 元素总个数
+     */
+    private long createRuns(Path input, Path output, List<Path> runs, SortCounter counter) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % type.bytes() != 0) {
+                throw new IllegalArgumentException("文件大小不是" + type + "的整数倍: " + size);
+            }
+            long count = size / type.bytes();
+            int[] ints = type == ElementType.INT ? new int[(int) Math.min(runSize, count)] : null;
+            long[] longs = type == ElementType.LONG ? new long[(int) Math.min(runSize, count)] : null;
+            for (long start = 0; start < count; start += runSize) {
+                int length = (int) Math.min(runSize, count - start);
+                MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, start * type.bytes(), (long) length * type.bytes());
+                in.order(order);
+                Path target = count <= runSize ? output : Files.createTempFile(tempDir, "run-", ".bin");
+                if (target != output) {
+                    runs.add(target);
+                }
+                try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    MappedByteBuffer buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, (long) length * type.bytes());
+                    buffer.order(order);
+                    if (type == ElementType.INT) {
+                        in.asIntBuffer().get(ints, 0, length);
+                        RadixSort.radixSort(ints, 0, length, RadixSort.DEFAULT_DIGIT_BITS, counter);
+                        buffer.asIntBuffer().put(ints, 0, length);
+                    } else {
+                        in.asLongBuffer().get(longs, 0, length);
+                        RadixSort.radixSort(longs, 0, length, RadixSort.DEFAULT_DIGIT_BITS, counter);
+                        buffer.asLongBuffer().put(longs, 0, length);
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 将一组顺串归并到目标文件中
+     */
+    private void merge(List<Path> group, Path target, SortCounter counter) throws IOException {
+        RunReader[] readers = new RunReader[group.size()];
+        long total = 0;
+        try {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new RunReader(group.get(i));
+                total += readers[i].size;
+            }
+            try (RunWriter writer = new RunWriter(target, total)) {
+                LoserTree tree = new LoserTree(readers);
+                int winner;
+                while (!readers[winner = tree.winner()].exhausted) {
+                    writer.write(readers[winner].head);
+                    readers[winner].advance();
+                    tree.replay(winner);
+                }
+            }
+            if (counter != null) {
+                // 每个叶子在建树时比赛一次，之后每取走一个元素(包括最后读完的那一次)再比赛一次，每次比赛的次数为叶子到根的层数
+                for (int i = 0; i < readers.length; i++) {
+                    counter.comparisons += (readers[i].size + 1) * LoserTree.depth(i, readers.length);
+                }
+                counter.moves += total;
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 败者树
+     *
+     * 叶子就是k个顺串，tree[1]到tree[k-1]为内部节点，记录比赛的败者，tree[0]记录最终的胜者；
+     * 叶子i对应的父节点为(i + k) / 2，节点t的父节点为t / 2；用k表示一个比所有元素都小的虚拟顺串，用于建树
+     */
+    private static class LoserTree {
+
+        private final RunReader[] readers;
+
+        private final int[] tree;
+
+        private final int k;
+
+        LoserTree(RunReader[] readers) {
+            this.readers = readers;
+            this.k = readers.length;
+            this.tree = new int[k];
+            // 所有内部节点先记录为虚拟的最小顺串，依次加入每个叶子后，虚拟顺串最终会被挤出去
+            Arrays.fill(tree, k);
+            for (int i = k - 1; i >= 0; i--) {
+                replay(i);
+            }
+        }
+
+        int winner() {
+            return tree[0];
+        }
+
+        /**
+         * 叶子s重新比赛一次需要比较的次数，即{@link #replay(int)}中循环的次数
+         */
+        static int depth(int s, int k) {
+            int t = (s + k) >> 1;
+            return t == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(t);
+        }
+
+        /**
+         * 叶子s的元素发生了变化，沿着到根的路径重新比赛，每个节点留下败者，胜者继续往上比
+         */
+        void replay(int s) {
+            for (int t = (s + k) >> 1; t > 0; t >>= 1) {
+                if (beats(tree[t], s)) {
+                    int temp = tree[t];
+                    tree[t] = s;
+                    s = temp;
+                }
+            }
+            tree[0] = s;
+        }
+
+        /**
+         * a是否应该排在b的前面，读完的顺串排在最后
+         */
+        private boolean beats(int a, int b) {
+            if (a == k) {
+                return true;
+            }
+            if (b == k) {
+                return false;
+            }
+            RunReader ra = readers[a];
+            RunReader rb = readers[b];
+            if (ra.exhausted || rb.exhausted) {
+                return !ra.exhausted;
+            }
+            return ra.head < rb.head || (ra.head == rb.head && a < b);
+        }
+    }
+
+    /**
+     * 顺序读取一个顺串，每次映射一个窗口，读完再映射下一个窗口
+     */
+    private class RunReader implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        /**
+         * 顺串的元素个数
+         */
+        private final long size;
+
+        /**
+         * 已经读取的元素个数
+         */
+        private long position;
+
+        private MappedByteBuffer window;
+
+        /**
+         * 当前头部的元素，int也扩展为long来比较
+         */
+        private long head;
+
+        private boolean exhausted;
+
+        RunReader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = channel.size() / type.bytes();
+            advance();
+        }
+
+        void advance() throws IOException {
+            if (position == size) {
+                exhausted = true;
+                return;
+            }
+            if (window == null || !window.hasRemaining()) {
+                long offset = position * type.bytes();
+                window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_BYTES, channel.size() - offset));
+                window.order(order);
+            }
+            head = type == ElementType.INT ? window.getInt() : window.getLong();
+            position++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * 顺序写入归并结果，文件的总大小是已知的，每次映射一个窗口，写满再映射下一个窗口
+     */
+    private class RunWriter implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        private final long totalBytes;
+
+        private long offset;
+
+        private MappedByteBuffer window;
+
+        RunWriter(Path path, long size) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.totalBytes = size * type.bytes();
+        }
+
+        void write(long value) throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                window = channel.map(FileChannel.MapMode.READ_WRITE, offset, Math.min(WINDOW_BYTES, totalBytes - offset));
+                window.order(order);
+                offset += window.capacity();
+            }
+            if (type == ElementType.INT) {
+                window.putInt((int) value);
+            } else {
+                window.putLong(value);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ddf.datastructure.sort;
+
+/**
+ * 希尔排序的增量(gap)序列
+ *
+ * 希尔排序的效率几乎完全取决于增量序列，希尔原始的对半切分序列在很多数据下会退化到接近O(n²)，
+ * 所以把增量的生成抽象出来，排序时按照下面的方式使用，和原来的对半切分写法是一样的：
+ *
+ *      for (int gap = sequence.first(length); gap > 0; gap = sequence.next(gap)) {
+ *          ...
+ *      }
+ *
+ * 实现需要保证：长度大于1的数组，序列最后一个增量必须是1，否则最后一轮不是普通的插入排序，不能保证有序；
+ * 同时为了保证排序过程中不产生额外的对象，两个方法都只返回int，不要在方法里创建数组
+ *
+ * 内置的序列见{@link StandardGapSequence}
+ *
+ * @author dongfang.ding
+ * @date 2019/7/3 14:26
+ */
+public interface GapSequence {
+
+    /**
+     * 长度为length的数组排序时使用的第一个(最大的)增量
+     *
+     * @param length 待排序的元素个数
+     * @return 第一个增量，返回0表示不需要排序
+     */
+    int first(int length);
+
+    /**
+     * 当前增量之后的下一个(更小的)增量
+     *
+     * @param gap 当前增量
+     * @return 下一个增量，当前增量为1时返回0，表示排序结束
+     */
+    int next(int gap);
+}
@@ -1,6 +1,7 @@
 package com.ddf.datastructure.sort;
 
 import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * 插入排序
@@ -18,6 +19,14 @@ import java.util.Arrays;
  *
  * 最差时间复杂度O(n²), 最好时间复杂度O(n)
  *
+ * 另外提供了两种优化的模式：
+ * 1. 二分插入{@link #binarySort(int[], int, int)}：前面的元素已经有序，所以待插入元素的位置可以二分查找，比较次数降为O(nlogn)，
+ *      找到位置之后整段后移只需要一次System.arraycopy；
+ * 2. 自适应模式{@link #adaptiveSort(int[], int, int)}：针对基本有序的数据(比如只追加、偶尔有几条迟到数据的日志)，
+ *      先找出数据中天然的有序段再归并，基本有序的数据接近O(n)，最差O(nlogn)，见{@link NaturalMergeSort}
+ *
+ * 除了int[]，还提供了long[]、double[]、short[]、char[]的版本，避免装箱；double[]的顺序与{@link Double#compare(double, double)}一致
+ *
  *
  *
  * @author dongfang.ding
@@ -31,21 +40,46 @@ public class InsertSort {
 
         System.out.println("排序前： " + Arrays.toString(arr));
         System.out.println("排序后： " + Arrays.toString(sort));
+        System.out.println("二分插入： " + Arrays.toString(binarySort(arr)));
+        System.out.println("自适应： " + Arrays.toString(adaptiveSort(arr)));
+        double[] doubles = {1.5, Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, -0.0, 0.0};
+        System.out.println("double排序： " + Arrays.toString(sort(doubles)));
     }
 
     public static int[] sort(int[] arr) {
         // 数组复制，不改变原数组内容
         int[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(int[] arr) {
+        sort(arr, 0, arr.length);
+    }
 
+    /**
+     * 对原数组的[from, to)区间排序，区间外的元素不受影响，不会产生任何额外的数组拷贝
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(int[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
         int insertVal = 0;
         // 第一个元素是有序的，所以第一个不用排，少循环一次就好
-        for (int i = 1; i < dest.length; i++) {
+        for (int i = from + 1; i < to; i++) {
             // 从[1]开始每次循环，记录每个位置待插入的元素，这个位置的元素会与该元素前面的所有元素进行比较，找到它合适的位置
             insertVal = dest[i];
             // 临时变量
             int j = i;
             // 将当前元素与该元素之前已排序的元素一个个比较
-            while (j > 0 && insertVal < dest[j - 1]) {
+            while (j > from && insertVal < dest[j - 1]) {
                 // 如果该元素比之前的元素小，那么将前一个元素后移（可以看到是通过将前一个元素的值覆盖到后面那个角标的位置）
                 // 如20 19，当前比较的是19， 19小于它的前一位20，所以应该将20后移，给19腾位置，但是后移的操作不好操作，
                 // 于是用变量先将当前要插入的19保存起来，然后将19的位置用20覆盖，这样数据就变成了了20 20，然后循环结束，找到了
@@ -58,6 +92,326 @@ public class InsertSort {
                 dest[j] = insertVal;
             }
         }
+    }
+
+    public static int[] binarySort(int[] arr) {
+        // 数组复制，不改变原数组内容
+        int[] dest = Arrays.copyOf(arr, arr.length);
+        binarySort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 二分插入排序，对原数组的[from, to)区间排序，不会产生任何额外的数组拷贝
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void binarySort(int[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        binarySort(dest, from, to, from);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，并将本次排序的比较、移动次数上报给监听器
+     *
+     * @param dest
+     * @param from    起始角标(包含)
+     * @param to      结束角标(不包含)
+     * @param metrics 监听器，为null时与{@link #sort(int[], int, int)}完全一样
+     */
+    public static void sort(int[] dest, int from, int to, SortMetrics metrics) {
+        if (metrics == null) {
+            sort(dest, from, to);
+            return;
+        }
+        Objects.checkFromToIndex(from, to, dest.length);
+        SortCounter counter = new SortCounter();
+        sort(dest, from, to, counter);
+        counter.report(metrics, "InsertSort", to - from);
+    }
+
+    /**
+     * 与{@link #sort(int[], int, int)}逻辑一致，额外统计比较和移动次数
+     */
+    static void sort(int[] dest, int from, int to, SortCounter counter) {
+        int insertVal;
+        for (int i = from + 1; i < to; i++) {
+            insertVal = dest[i];
+            int j = i;
+            while (j > from) {
+                counter.comparisons ++;
+                if (insertVal >= dest[j - 1]) {
+                    break;
+                }
+                dest[j] = dest[j - 1];
+                counter.moves ++;
+                j --;
+            }
+            if (j != i) {
+                dest[j] = insertVal;
+                counter.moves ++;
+            }
+        }
+    }
+
+    /**
+     * 二分插入排序，对原数组的[from, to)区间排序，并将本次排序的比较、移动次数上报给监听器
+     *
+     * @param dest
+     * @param from    起始角标(包含)
+     * @param to      结束角标(不包含)
+     * @param metrics 监听器，为null时与{@link #binarySort(int[], int, int)}完全一样
+     */
+    public static void binarySort(int[] dest, int from, int to, SortMetrics metrics) {
+        if (metrics == null) {
+            binarySort(dest, from, to);
+            return;
+        }
+        Objects.checkFromToIndex(from, to, dest.length);
+        SortCounter counter = new SortCounter();
+        binarySort(dest, from, to, from, counter);
+        counter.report(metrics, "InsertSort.binarySort", to - from);
+    }
+
+    /**
+     * 二分插入排序，[from, start)区间已经有序，从start开始依次插入
+     *
+     * 与普通插入排序的区别在于寻找插入位置时，不再一个个往前比较，而是在有序区间中二分查找，
+     * 查找的是第一个比待插入元素大的位置，相等的元素会插在已有元素的后面，保证排序是稳定的
+     */
+    static void binarySort(int[] dest, int from, int to, int start) {
+        if (start == from) {
+            start++;
+        }
+        for (; start < to; start++) {
+            int insertVal = dest[start];
+            int left = from;
+            int right = start;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (insertVal < dest[mid]) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            // [left, start)整体后移一位，给待插入元素腾位置
+            System.arraycopy(dest, left, dest, left + 1, start - left);
+            dest[left] = insertVal;
+        }
+    }
+
+    /**
+     * 与{@link #binarySort(int[], int, int, int)}逻辑一致，额外统计比较和移动次数
+     */
+    static void binarySort(int[] dest, int from, int to, int start, SortCounter counter) {
+        if (start == from) {
+            start++;
+        }
+        for (; start < to; start++) {
+            int insertVal = dest[start];
+            int left = from;
+            int right = start;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                counter.comparisons++;
+                if (insertVal < dest[mid]) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(dest, left, dest, left + 1, start - left);
+            dest[left] = insertVal;
+            counter.moves += start - left + 1;
+        }
+    }
+
+    public static int[] adaptiveSort(int[] arr) {
+        // 数组复制，不改变原数组内容
+        int[] dest = Arrays.copyOf(arr, arr.length);
+        adaptiveSort(dest, 0, dest.length);
         return dest;
     }
+
+    /**
+     * 自适应模式，对原数组的[from, to)区间排序，排序是稳定的；归并时需要一个不超过区间一半大小的辅助数组
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void adaptiveSort(int[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        NaturalMergeSort.sort(dest, from, to);
+    }
+
+    /**
+     * 自适应模式，对原数组的[from, to)区间排序，并将本次排序的比较、交换、移动次数上报给监听器
+     *
+     * @param dest
+     * @param from    起始角标(包含)
+     * @param to      结束角标(不包含)
+     * @param metrics 监听器，为null时与{@link #adaptiveSort(int[], int, int)}完全一样
+     */
+    public static void adaptiveSort(int[] dest, int from, int to, SortMetrics metrics) {
+        if (metrics == null) {
+            adaptiveSort(dest, from, to);
+            return;
+        }
+        Objects.checkFromToIndex(from, to, dest.length);
+        SortCounter counter = new SortCounter();
+        NaturalMergeSort.sort(dest, from, to, counter);
+        counter.report(metrics, "InsertSort.adaptiveSort", to - from);
+    }
+
+    public static long[] sort(long[] arr) {
+        // 拷贝数组，不改变原数组的值
+        long[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(long[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(long[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int i = from + 1; i < to; i++) {
+            long insertVal = dest[i];
+            int j = i;
+            while (j > from && insertVal < dest[j - 1]) {
+                dest[j] = dest[j - 1];
+                j--;
+            }
+            dest[j] = insertVal;
+        }
+    }
+
+    public static double[] sort(double[] arr) {
+        // 拷贝数组，不改变原数组的值
+        double[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(double[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，-0.0排在0.0前面，NaN排在最后，见{@link DoubleOrdering}
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(double[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        DoubleOrdering.sort(dest, from, to, InsertSort::insertionSort);
+    }
+
+    private static void insertionSort(double[] dest, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            double insertVal = dest[i];
+            int j = i;
+            while (j > from && insertVal < dest[j - 1]) {
+                dest[j] = dest[j - 1];
+                j--;
+            }
+            dest[j] = insertVal;
+        }
+    }
+
+    public static short[] sort(short[] arr) {
+        // 拷贝数组，不改变原数组的值
+        short[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(short[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(short[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int i = from + 1; i < to; i++) {
+            short insertVal = dest[i];
+            int j = i;
+            while (j > from && insertVal < dest[j - 1]) {
+                dest[j] = dest[j - 1];
+                j--;
+            }
+            dest[j] = insertVal;
+        }
+    }
+
+    public static char[] sort(char[] arr) {
+        // 拷贝数组，不改变原数组的值
+        char[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(char[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(char[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int i = from + 1; i < to; i++) {
+            char insertVal = dest[i];
+            int j = i;
+            while (j > from && insertVal < dest[j - 1]) {
+                dest[j] = dest[j - 1];
+                j--;
+            }
+            dest[j] = insertVal;
+        }
+    }
 }
@@ -0,0 +1,208 @@
+package com.ddf.datastructure.sort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 按照提取出来的key对对象数组排序(Schwartzian transform)
+ *
+ * 用Comparator排序对象时，每次比较都要重新计算两个元素的key，一共要计算O(nlogn)次，key的计算代价比较大时(解析字符串、多个字段组合等)，
+ * 大部分时间都花在了重复计算上；这里每个元素的key只计算一次，分三步完成：
+ *
+ * 1. 提取：依次计算每个元素的key，连同元素的下标一起存到基本类型的数组中；
+ * 2. 排序：用包中已有的基本类型排序对key排序，下标跟着key一起移动，排序完成后下标数组就是一个置换：
+ *      结果中第i个位置的元素，是原来第perm[i]个元素；
+ *      int的key和下标直接拼成一个long，高32位是key，低32位是下标，这样key相同时按下标排序，而且每个long都不相同，
+ *      直接用{@link RadixSort}排序long[]即可；long和double的key没法和下标拼在一起，用{@link RadixSort}同时移动key数组和下标数组，
+ *      基数排序本身是稳定的，key相同时下标小的仍然在前面；
+ * 3. 应用置换：沿着置换的环依次移动元素，每个元素只移动一次，不需要再分配一个对象数组
+ *
+ * 排序是稳定的：key相同的元素保持原来的先后顺序；key的计算抛出异常时数组不会被修改
+ *
+ * key的顺序：int和long按数值大小，double与{@link Double#compare(double, double)}一致，即-0.0在0.0前面，NaN在最后
+ *
+ * 三种key的方法名不同，是因为sort(arr, x -> ...)这样的lambda没法区分ToIntFunction和ToLongFunction，与
+ * {@link java.util.Comparator#comparingInt(ToIntFunction)}的命名方式相同
+ *
+ * @author dongfang.ding
+ * @date 2019/7/16 14:20
+ */
+public final class KeySort {
+
+    /**
+     * 元素较少时直接插入排序拼好的long，比基数排序统计直方图的开销小
+     */
+    private static final int SMALL_THRESHOLD = 64;
+
+    private KeySort() {
+    }
+
+    public static void main(String[] args) {
+        String[] words = {"banana", "kiwi", "apple", "fig", "cherry", "date", "plum"};
+        String[] byLength = Arrays.copyOf(words, words.length);
+        sortByInt(byLength, String::length);
+        System.out.println("排序前： " + Arrays.toString(words));
+        System.out.println("按长度排序(稳定)： " + Arrays.toString(byLength));
+        String[] byHash = Arrays.copyOf(words, words.length);
+        sortByLong(byHash, word -> (long) word.hashCode() * word.length());
+        System.out.println("按计算出来的long排序： " + Arrays.toString(byHash));
+    }
+
+    public static <T> void sortByInt(T[] arr, ToIntFunction<? super T> key) {
+        sortByInt(arr, 0, arr.length, key);
+    }
+
+    /**
+     * 按照int类型的key对[from, to)区间稳定排序，每个元素的key只计算一次
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     * @param key  key的提取函数
+     */
+    public static <T> void sortByInt(T[] arr, int from, int to, ToIntFunction<? super T> key) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        Objects.requireNonNull(key);
+        int size = to - from;
+        if (size < 2) {
+            return;
+        }
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = ((long) key.applyAsInt(arr[from + i]) << 32) | i;
+        }
+        if (size <= SMALL_THRESHOLD) {
+            InsertSort.sort(packed, 0, size);
+        } else {
+            RadixSort.sort(packed, 0, size);
+        }
+        int[] perm = new int[size];
+        for (int i = 0; i < size; i++) {
+            perm[i] = (int) packed[i];
+        }
+        permute(arr, from, perm);
+    }
+
+    public static <T> void sortByLong(T[] arr, ToLongFunction<? super T> key) {
+        sortByLong(arr, 0, arr.length, key);
+    }
+
+    /**
+     * 按照long类型的key对[from, to)区间稳定排序，每个元素的key只计算一次
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     * @param key  key的提取函数
+     */
+    public static <T> void sortByLong(T[] arr, int from, int to, ToLongFunction<? super T> key) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        Objects.requireNonNull(key);
+        int size = to - from;
+        if (size < 2) {
+            return;
+        }
+        long[] keys = new long[size];
+        int[] perm = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = key.applyAsLong(arr[from + i]);
+            perm[i] = i;
+        }
+        RadixSort.sort(keys, perm, 0, size);
+        permute(arr, from, perm);
+    }
+
+    public static <T> void sortByDouble(T[] arr, ToDoubleFunction<? super T> key) {
+        sortByDouble(arr, 0, arr.length, key);
+    }
+
+    /**
+     * 按照double类型的key对[from, to)区间稳定排序，每个元素的key只计算一次
+     *
+     * double按位转换成long之后，正数的大小顺序与long一致，负数的顺序是反的，所以负数把除符号位以外的位全部取反，
+     * 转换后的long按数值排序就与{@link Double#compare(double, double)}的顺序完全一致
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     * @param key  key的提取函数
+     */
+    public static <T> void sortByDouble(T[] arr, int from, int to, ToDoubleFunction<? super T> key) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        Objects.requireNonNull(key);
+        int size = to - from;
+        if (size < 2) {
+            return;
+        }
+        long[] keys = new long[size];
+        int[] perm = new int[size];
+        for (int i = 0; i < size; i++) {
+            long bits = Double.doubleToLongBits(key.applyAsDouble(arr[from + i]));
+            keys[i] = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+            perm[i] = i;
+        }
+        RadixSort.sort(keys, perm, 0, size);
+        permute(arr, from, perm);
+    }
+
+    public static <T> void sortByInt(List<T> list, ToIntFunction<? super T> key) {
+        @SuppressWarnings("unchecked")
+        T[] arr = (T[]) list.toArray();
+        sortByInt(arr, key);
+        setAll(list, arr);
+    }
+
+    public static <T> void sortByLong(List<T> list, ToLongFunction<? super T> key) {
+        @SuppressWarnings("unchecked")
+        T[] arr = (T[]) list.toArray();
+        sortByLong(arr, key);
+        setAll(list, arr);
+    }
+
+    public static <T> void sortByDouble(List<T> list, ToDoubleFunction<? super T> key) {
+        @SuppressWarnings("unchecked")
+        T[] arr = (T[]) list.toArray();
+        sortByDouble(arr, key);
+        setAll(list, arr);
+    }
+
+    /**
+     * 按照置换移动元素，完成后arr[from + i]为原来的arr[from + perm[i]]；
+     * 沿着每个环移动，处理过的位置记为perm[j] = j，perm的内容会被破坏
+     */
+    private static <T> void permute(T[] arr, int from, int[] perm) {
+        for (int i = 0; i < perm.length; i++) {
+            if (perm[i] == i) {
+                continue;
+            }
+            T first = arr[from + i];
+            int j = i;
+            while (true) {
+                int k = perm[j];
+                perm[j] = j;
+                if (k == i) {
+                    arr[from + j] = first;
+                    break;
+                }
+                arr[from + j] = arr[from + k];
+                j = k;
+            }
+        }
+    }
+
+    /**
+     * 与{@link List#sort(java.util.Comparator)}的默认实现一样，通过ListIterator写回，LinkedList也是O(n)
+     */
+    private static <T> void setAll(List<T> list, T[] arr) {
+        ListIterator<T> iterator = list.listIterator();
+        for (T t : arr) {
+            iterator.next();
+            iterator.set(t);
+        }
+    }
+}
@@ -0,0 +1,1046 @@
+package com.ddf.datastructure.sort;
+
+/**
+ * 自然归并排序，{@link InsertSort#adaptiveSort(int[], int, int)}的实现，思路与TimSort一致
+ *
+ * 1. 找有序段(run)：从当前位置开始往后找，找到一段升序(允许相等)或者严格降序的数据，降序的直接反转成升序，
+ *      严格降序才反转，是为了不打乱相等元素的先后顺序，保证稳定；
+ * 2. 补齐：有序段太短的话归并的次数太多，所以不足minRun个的，用二分插入排序{@link InsertSort#binarySort(int[], int, int, int)}
+ *      补齐到minRun个，minRun取16到32之间的一个数，保证有序段的个数刚好是2的幂或者略小于2的幂，这样归并最均衡；
+ * 3. 归并：有序段依次压入栈中，栈中的段需要始终满足 A > B + C 且 B > C(A、B、C为栈顶的三个段的长度)，
+ *      不满足时就合并相邻的两个段，这样相邻的段长度都差不多，而且栈的深度是O(logn)；
+ * 4. 飞奔(galloping)：合并两个段时先逐个比较，如果发现某一个段连续赢了minGallop次，说明这个段的数据成片地比另一个段小，
+ *      这时改为在这个段中以1、3、7、15...的步长往后跳着找，找到范围后再二分，然后整片拷贝过去，
+ *      对于基本有序的数据，两个段往往只在交界处有少量交错，这样可以跳过绝大部分的比较；
+ *      合并前也会先用同样的方法找出第一个段开头已经就位的部分和第二个段末尾已经就位的部分，这部分不需要参与合并
+ *
+ * 已经有序的数据只会找到一个有序段，比较n-1次就结束了；只在末尾追加了少量乱序数据时，也只需要一次很短的合并
+ *
+ * 需要统计时走单独的{@link Counting}，与其它排序一样，统计的代码不会出现在不统计的路径上
+ *
+ * @author dongfang.ding
+ * @date 2019/7/10 14:05
+ */
+final class NaturalMergeSort {
+
+    /**
+     * 元素个数少于该值时不归并，直接二分插入排序
+     */
+    private static final int MIN_MERGE = 32;
+
+    /**
+     * 某个段连续赢了多少次之后进入飞奔模式
+     */
+    private static final int MIN_GALLOP = 7;
+
+    /**
+     * 辅助数组的初始大小
+     */
+    private static final int INITIAL_TMP_LENGTH = 256;
+
+    private final int[] arr;
+
+    /**
+     * 进入飞奔模式的阈值，飞奔模式收益明显时调小，收益不明显时调大
+     */
+    private int minGallop = MIN_GALLOP;
+
+    /**
+     * 合并时暂存较短那一段的辅助数组
+     */
+    private int[] tmp;
+
+    /**
+     * 待合并的有序段的栈，第i个段从runBase[i]开始，长度为runLen[i]
+     */
+    private int stackSize = 0;
+
+    private final int[] runBase;
+
+    private final int[] runLen;
+
+    private NaturalMergeSort(int[] arr, int length) {
+        this.arr = arr;
+        this.tmp = new int[length < 2 * INITIAL_TMP_LENGTH ? length >>> 1 : INITIAL_TMP_LENGTH];
+        // 栈中的段长度至少按照斐波那契数列增长，这些深度足以容纳对应长度的数组
+        int stackLength = length < 120 ? 5 : length < 1542 ? 10 : length < 119151 ? 24 : 49;
+        this.runBase = new int[stackLength];
+        this.runLen = new int[stackLength];
+    }
+
+    /**
+     * 对[lo, hi)区间排序，调用方负责检查角标
+     */
+    static void sort(int[] arr, int lo, int hi) {
+        int remaining = hi - lo;
+        if (remaining < 2) {
+            return;
+        }
+        if (remaining < MIN_MERGE) {
+            int initRunLen = countRunAndMakeAscending(arr, lo, hi);
+            InsertSort.binarySort(arr, lo, hi, lo + initRunLen);
+            return;
+        }
+        NaturalMergeSort sorter = new NaturalMergeSort(arr, remaining);
+        int minRun = minRunLength(remaining);
+        do {
+            int runLen = countRunAndMakeAscending(arr, lo, hi);
+            // 有序段太短，用二分插入补齐到minRun个
+            if (runLen < minRun) {
+                int force = Math.min(remaining, minRun);
+                InsertSort.binarySort(arr, lo, lo + force, lo + runLen);
+                runLen = force;
+            }
+            sorter.pushRun(lo, runLen);
+            sorter.mergeCollapse();
+            lo += runLen;
+            remaining -= runLen;
+        } while (remaining != 0);
+        sorter.mergeForceCollapse();
+    }
+
+    /**
+     * 对[lo, hi)区间排序，并统计比较、交换、移动次数，调用方负责检查角标
+     */
+    static void sort(int[] arr, int lo, int hi, SortCounter counter) {
+        Counting.sort(arr, lo, hi, counter);
+    }
+
+    /**
+     * 从lo开始找出一段有序的数据，严格降序的会被反转成升序
+     *
+     * @return 有序段的长度
+     */
+    private static int countRunAndMakeAscending(int[] arr, int lo, int hi) {
+        int runHi = lo + 1;
+        if (runHi == hi) {
+            return 1;
+        }
+        if (arr[runHi++] < arr[lo]) {
+            while (runHi < hi && arr[runHi] < arr[runHi - 1]) {
+                runHi++;
+            }
+            reverseRange(arr, lo, runHi);
+        } else {
+            while (runHi < hi && arr[runHi] >= arr[runHi - 1]) {
+                runHi++;
+            }
+        }
+        return runHi - lo;
+    }
+
+    private static void reverseRange(int[] arr, int lo, int hi) {
+        hi--;
+        while (lo < hi) {
+            int temp = arr[lo];
+            arr[lo++] = arr[hi];
+            arr[hi--] = temp;
+        }
+    }
+
+    /**
+     * 计算最短的有序段长度：n不断右移直到小于MIN_MERGE，只要移出去的位中有1就加1
+     */
+    private static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= (n & 1);
+            n >>= 1;
+        }
+        return n + r;
+    }
+
+    private void pushRun(int base, int len) {
+        runBase[stackSize] = base;
+        runLen[stackSize] = len;
+        stackSize++;
+    }
+
+    /**
+     * 检查栈顶的几个段是否满足 A > B + C 且 B > C，不满足就合并，直到满足为止
+     */
+    private void mergeCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1]
+                    || n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+                // B与A、C中较短的那个合并
+                if (runLen[n - 1] < runLen[n + 1]) {
+                    n--;
+                }
+            } else if (runLen[n] > runLen[n + 1]) {
+                break;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * 所有有序段都已入栈，把栈中剩下的段全部合并
+     */
+    private void mergeForceCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if (n > 0 && runLen[n - 1] < runLen[n + 1]) {
+                n--;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * 合并栈中第i个和第i+1个段
+     */
+    private void mergeAt(int i) {
+        int base1 = runBase[i];
+        int len1 = runLen[i];
+        int base2 = runBase[i + 1];
+        int len2 = runLen[i + 1];
+
+        runLen[i] = len1 + len2;
+        if (i == stackSize - 3) {
+            runBase[i + 1] = runBase[i + 2];
+            runLen[i + 1] = runLen[i + 2];
+        }
+        stackSize--;
+
+        // 第一段中不大于第二段第一个元素的部分已经就位
+        int k = gallopRight(arr[base2], arr, base1, len1, 0);
+        base1 += k;
+        len1 -= k;
+        if (len1 == 0) {
+            return;
+        }
+        // 第二段中不小于第一段最后一个元素的部分已经就位
+        len2 = gallopLeft(arr[base1 + len1 - 1], arr, base2, len2, len2 - 1);
+        if (len2 == 0) {
+            return;
+        }
+        // 把较短的一段拷贝到辅助数组中，从较短那一段的一侧开始合并
+        if (len1 <= len2) {
+            mergeLo(base1, len1, base2, len2);
+        } else {
+            mergeHi(base1, len1, base2, len2);
+        }
+    }
+
+    /**
+     * 在有序区间[base, base + len)中从hint开始飞奔查找key的插入位置，有相等的元素时插在最左边
+     *
+     * @return k，满足 a[base + k - 1] < key <= a[base + k]
+     */
+    private static int gallopLeft(int key, int[] a, int base, int len, int hint) {
+        int lastOfs = 0;
+        int ofs = 1;
+        if (key > a[base + hint]) {
+            // 往右以1、3、7、15...的步长跳，直到 a[base + hint + lastOfs] < key <= a[base + hint + ofs]
+            int maxOfs = len - hint;
+            while (ofs < maxOfs && key > a[base + hint + ofs]) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                // 溢出
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            lastOfs += hint;
+            ofs += hint;
+        } else {
+            // 往左跳，直到 a[base + hint - ofs] < key <= a[base + hint - lastOfs]
+            int maxOfs = hint + 1;
+            while (ofs < maxOfs && key <= a[base + hint - ofs]) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            int temp = lastOfs;
+            lastOfs = hint - ofs;
+            ofs = hint - temp;
+        }
+        // 在(lastOfs, ofs]之间二分
+        lastOfs++;
+        while (lastOfs < ofs) {
+            int m = lastOfs + ((ofs - lastOfs) >>> 1);
+            if (key > a[base + m]) {
+                lastOfs = m + 1;
+            } else {
+                ofs = m;
+            }
+        }
+        return ofs;
+    }
+
+    /**
+     * 与{@link #gallopLeft}相同，只是有相等的元素时插在最右边
+     *
+     * @return k，满足 a[base + k - 1] <= key < a[base + k]
+     */
+    private static int gallopRight(int key, int[] a, int base, int len, int hint) {
+        int ofs = 1;
+        int lastOfs = 0;
+        if (key < a[base + hint]) {
+            int maxOfs = hint + 1;
+            while (ofs < maxOfs && key < a[base + hint - ofs]) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            int temp = lastOfs;
+            lastOfs = hint - ofs;
+            ofs = hint - temp;
+        } else {
+            int maxOfs = len - hint;
+            while (ofs < maxOfs && key >= a[base + hint + ofs]) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            lastOfs += hint;
+            ofs += hint;
+        }
+        lastOfs++;
+        while (lastOfs < ofs) {
+            int m = lastOfs + ((ofs - lastOfs) >>> 1);
+            if (key < a[base + m]) {
+                ofs = m;
+            } else {
+                lastOfs = m + 1;
+            }
+        }
+        return ofs;
+    }
+
+    /**
+     * 第一段较短，把第一段拷贝到辅助数组，从左往右合并
+     */
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+        int[] a = arr;
+        int[] tmp = ensureCapacity(len1);
+        int cursor1 = 0;
+        int cursor2 = base2;
+        int dest = base1;
+        System.arraycopy(a, base1, tmp, cursor1, len1);
+
+        // mergeAt已经保证第二段的第一个元素比第一段的都小
+        a[dest++] = a[cursor2++];
+        if (--len2 == 0) {
+            System.arraycopy(tmp, cursor1, a, dest, len1);
+            return;
+        }
+        // mergeAt已经保证第一段的最后一个元素比第二段的都大
+        if (len1 == 1) {
+            System.arraycopy(a, cursor2, a, dest, len2);
+            a[dest + len2] = tmp[cursor1];
+            return;
+        }
+
+        int minGallop = this.minGallop;
+        outer:
+        while (true) {
+            // 两段各自连续赢了多少次
+            int count1 = 0;
+            int count2 = 0;
+            // 逐个比较，直到某一段连续赢了minGallop次
+            do {
+                if (a[cursor2] < tmp[cursor1]) {
+                    a[dest++] = a[cursor2++];
+                    count2++;
+                    count1 = 0;
+                    if (--len2 == 0) {
+                        break outer;
+                    }
+                } else {
+                    a[dest++] = tmp[cursor1++];
+                    count1++;
+                    count2 = 0;
+                    if (--len1 == 1) {
+                        break outer;
+                    }
+                }
+            } while ((count1 | count2) < minGallop);
+
+            // 飞奔模式，直到两段每次整片拷贝的个数都不足MIN_GALLOP
+            do {
+                count1 = gallopRight(a[cursor2], tmp, cursor1, len1, 0);
+                if (count1 != 0) {
+                    System.arraycopy(tmp, cursor1, a, dest, count1);
+                    dest += count1;
+                    cursor1 += count1;
+                    len1 -= count1;
+                    if (len1 <= 1) {
+                        break outer;
+                    }
+                }
+                a[dest++] = a[cursor2++];
+                if (--len2 == 0) {
+                    break outer;
+                }
+
+                count2 = gallopLeft(tmp[cursor1], a, cursor2, len2, 0);
+                if (count2 != 0) {
+                    System.arraycopy(a, cursor2, a, dest, count2);
+                    dest += count2;
+                    cursor2 += count2;
+                    len2 -= count2;
+                    if (len2 == 0) {
+                        break outer;
+                    }
+                }
+                a[dest++] = tmp[cursor1++];
+                if (--len1 == 1) {
+                    break outer;
+                }
+                minGallop--;
+            } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+            if (minGallop < 0) {
+                minGallop = 0;
+            }
+            // 退出飞奔模式，提高下次进入的门槛
+            minGallop += 2;
+        }
+        this.minGallop = Math.max(minGallop, 1);
+
+        if (len1 == 1) {
+            System.arraycopy(a, cursor2, a, dest, len2);
+            a[dest + len2] = tmp[cursor1];
+        } else {
+            System.arraycopy(tmp, cursor1, a, dest, len1);
+        }
+    }
+
+    /**
+     * 第二段较短，把第二段拷贝到辅助数组，从右往左合并，逻辑与{@link #mergeLo}对称
+     */
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+        int[] a = arr;
+        int[] tmp = ensureCapacity(len2);
+        System.arraycopy(a, base2, tmp, 0, len2);
+
+        int cursor1 = base1 + len1 - 1;
+        int cursor2 = len2 - 1;
+        int dest = base2 + len2 - 1;
+
+        a[dest--] = a[cursor1--];
+        if (--len1 == 0) {
+            System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+            return;
+        }
+        if (len2 == 1) {
+            dest -= len1;
+            cursor1 -= len1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+            a[dest] = tmp[cursor2];
+            return;
+        }
+
+        int minGallop = this.minGallop;
+        outer:
+        while (true) {
+            int count1 = 0;
+            int count2 = 0;
+            do {
+                if (tmp[cursor2] < a[cursor1]) {
+                    a[dest--] = a[cursor1--];
+                    count1++;
+                    count2 = 0;
+                    if (--len1 == 0) {
+                        break outer;
+                    }
+                } else {
+                    a[dest--] = tmp[cursor2--];
+                    count2++;
+                    count1 = 0;
+                    if (--len2 == 1) {
+                        break outer;
+                    }
+                }
+            } while ((count1 | count2) < minGallop);
+
+            do {
+                count1 = len1 - gallopRight(tmp[cursor2], a, base1, len1, len1 - 1);
+                if (count1 != 0) {
+                    dest -= count1;
+                    cursor1 -= count1;
+                    len1 -= count1;
+                    System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                    if (len1 == 0) {
+                        break outer;
+                    }
+                }
+                a[dest--] = tmp[cursor2--];
+                if (--len2 == 1) {
+                    break outer;
+                }
+
+                count2 = len2 - gallopLeft(a[cursor1], tmp, 0, len2, len2 - 1);
+                if (count2 != 0) {
+                    dest -= count2;
+                    cursor2 -= count2;
+                    len2 -= count2;
+                    System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                    if (len2 <= 1) {
+                        break outer;
+                    }
+                }
+                a[dest--] = a[cursor1--];
+                if (--len1 == 0) {
+                    break outer;
+                }
+                minGallop--;
+            } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+            if (minGallop < 0) {
+                minGallop = 0;
+            }
+            minGallop += 2;
+        }
+        this.minGallop = Math.max(minGallop, 1);
+
+        if (len2 == 1) {
+            dest -= len1;
+            cursor1 -= len1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+            a[dest] = tmp[cursor2];
+        } else {
+            System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+        }
+    }
+
+    /**
+     * 辅助数组不够大时按2的幂扩容，不超过数组长度的一半
+     */
+    private int[] ensureCapacity(int minCapacity) {
+        if (tmp.length < minCapacity) {
+            int newSize = Integer.highestOneBit(minCapacity) << 1;
+            // 溢出
+            if (newSize < 0) {
+                newSize = minCapacity;
+            } else {
+                newSize = Math.min(newSize, arr.length >>> 1);
+            }
+            tmp = new int[newSize];
+        }
+        return tmp;
+    }
+
+    /**
+     * 统计用的归并排序，与外层的实现逐行对应，只是比较经过{@link #compared(boolean)}计数，
+     * 移动和交换次数在每次合并、每个有序段结束时直接算出来；单独一份代码，不统计时的排序中没有任何计数的判断
+     */
+    private static final class Counting {
+
+        private final int[] arr;
+
+        /**
+         * 计数器
+         */
+        private final SortCounter counter;
+
+        /**
+         * 进入飞奔模式的阈值，飞奔模式收益明显时调小，收益不明显时调大
+         */
+        private int minGallop = MIN_GALLOP;
+
+        /**
+         * 合并时暂存较短那一段的辅助数组
+         */
+        private int[] tmp;
+
+        /**
+         * 待合并的有序段的栈，第i个段从runBase[i]开始，长度为runLen[i]
+         */
+        private int stackSize = 0;
+
+        private final int[] runBase;
+
+        private final int[] runLen;
+
+        Counting(int[] arr, int length, SortCounter counter) {
+            this.arr = arr;
+            this.counter = counter;
+            this.tmp = new int[length < 2 * INITIAL_TMP_LENGTH ? length >>> 1 : INITIAL_TMP_LENGTH];
+            // 栈中的段长度至少按照斐波那契数列增长，这些深度足以容纳对应长度的数组
+            int stackLength = length < 120 ? 5 : length < 1542 ? 10 : length < 119151 ? 24 : 49;
+            this.runBase = new int[stackLength];
+            this.runLen = new int[stackLength];
+        }
+
+        /**
+         * 与{@link NaturalMergeSort#sort(int[], int, int)}逻辑一致，额外统计比较、交换、移动次数
+         */
+        static void sort(int[] arr, int lo, int hi, SortCounter counter) {
+            int remaining = hi - lo;
+            if (remaining < 2) {
+                return;
+            }
+            if (remaining < MIN_MERGE) {
+                int initRunLen = countRunAndMakeAscending(arr, lo, hi, counter);
+                InsertSort.binarySort(arr, lo, hi, lo + initRunLen, counter);
+                return;
+            }
+            Counting sorter = new Counting(arr, remaining, counter);
+            int minRun = minRunLength(remaining);
+            do {
+                int runLen = countRunAndMakeAscending(arr, lo, hi, counter);
+                // 有序段太短，用二分插入补齐到minRun个
+                if (runLen < minRun) {
+                    int force = Math.min(remaining, minRun);
+                    InsertSort.binarySort(arr, lo, lo + force, lo + runLen, counter);
+                    runLen = force;
+                }
+                sorter.pushRun(lo, runLen);
+                sorter.mergeCollapse();
+                lo += runLen;
+                remaining -= runLen;
+            } while (remaining != 0);
+            sorter.mergeForceCollapse();
+        }
+
+        /**
+         * 从lo开始找出一段有序的数据，严格降序的会被反转成升序
+         *
+         * @return 有序段的长度
+         */
+        private static int countRunAndMakeAscending(int[] arr, int lo, int hi, SortCounter counter) {
+            int runHi = lo + 1;
+            if (runHi == hi) {
+                return 1;
+            }
+            boolean descending = arr[runHi++] < arr[lo];
+            if (descending) {
+                while (runHi < hi && arr[runHi] < arr[runHi - 1]) {
+                    runHi++;
+                }
+                reverseRange(arr, lo, runHi);
+            } else {
+                while (runHi < hi && arr[runHi] >= arr[runHi - 1]) {
+                    runHi++;
+                }
+            }
+            int runLen = runHi - lo;
+            // 段内相邻元素各比较一次，没到末尾的话还有一次让循环停下来的比较
+            counter.comparisons += runLen - 1 + (runHi < hi ? 1 : 0);
+            if (descending) {
+                counter.swaps += runLen >>> 1;
+            }
+            return runLen;
+        }
+
+        private void pushRun(int base, int len) {
+            runBase[stackSize] = base;
+            runLen[stackSize] = len;
+            stackSize++;
+        }
+
+        /**
+         * 检查栈顶的几个段是否满足 A > B + C 且 B > C，不满足就合并，直到满足为止
+         */
+        private void mergeCollapse() {
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1]
+                        || n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+                    // B与A、C中较短的那个合并
+                    if (runLen[n - 1] < runLen[n + 1]) {
+                        n--;
+                    }
+                } else if (runLen[n] > runLen[n + 1]) {
+                    break;
+                }
+                mergeAt(n);
+            }
+        }
+
+        /**
+         * 所有有序段都已入栈，把栈中剩下的段全部合并
+         */
+        private void mergeForceCollapse() {
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] < runLen[n + 1]) {
+                    n--;
+                }
+                mergeAt(n);
+            }
+        }
+
+        /**
+         * 合并栈中第i个和第i+1个段
+         */
+        private void mergeAt(int i) {
+            int base1 = runBase[i];
+            int len1 = runLen[i];
+            int base2 = runBase[i + 1];
+            int len2 = runLen[i + 1];
+
+            runLen[i] = len1 + len2;
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLen[i + 1] = runLen[i + 2];
+            }
+            stackSize--;
+
+            // 第一段中不大于第二段第一个元素的部分已经就位
+            int k = gallopRight(arr[base2], arr, base1, len1, 0);
+            base1 += k;
+            len1 -= k;
+            if (len1 == 0) {
+                return;
+            }
+            // 第二段中不小于第一段最后一个元素的部分已经就位
+            len2 = gallopLeft(arr[base1 + len1 - 1], arr, base2, len2, len2 - 1);
+            if (len2 == 0) {
+                return;
+            }
+            // 合并时较短的一段拷贝到辅助数组，两段的每个元素再写回一次
+            counter.moves += Math.min(len1, len2) + len1 + len2;
+            // 把较短的一段拷贝到辅助数组中，从较短那一段的一侧开始合并
+            if (len1 <= len2) {
+                mergeLo(base1, len1, base2, len2);
+            } else {
+                mergeHi(base1, len1, base2, len2);
+            }
+        }
+
+        /**
+         * 在有序区间[base, base + len)中从hint开始飞奔查找key的插入位置，有相等的元素时插在最左边
+         *
+         * @return k，满足 a[base + k - 1] < key <= a[base + k]
+         */
+        private int gallopLeft(int key, int[] a, int base, int len, int hint) {
+            int lastOfs = 0;
+            int ofs = 1;
+            if (compared(key > a[base + hint])) {
+                // 往右以1、3、7、15...的步长跳，直到 a[base + hint + lastOfs] < key <= a[base + hint + ofs]
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && compared(key > a[base + hint + ofs])) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    // 溢出
+                    if (ofs <= 0) {
+                        ofs = maxOfs;
+                    }
+                }
+                if (ofs > maxOfs) {
+                    ofs = maxOfs;
+                }
+                lastOfs += hint;
+                ofs += hint;
+            } else {
+                // 往左跳，直到 a[base + hint - ofs] < key <= a[base + hint - lastOfs]
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && compared(key <= a[base + hint - ofs])) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) {
+                        ofs = maxOfs;
+                    }
+                }
+                if (ofs > maxOfs) {
+                    ofs = maxOfs;
+                }
+                int temp = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - temp;
+            }
+            // 在(lastOfs, ofs]之间二分
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (compared(key > a[base + m])) {
+                    lastOfs = m + 1;
+                } else {
+                    ofs = m;
+                }
+            }
+            return ofs;
+        }
+
+        /**
+         * 与{@link #gallopLeft}相同，只是有相等的元素时插在最右边
+         *
+         * @return k，满足 a[base + k - 1] <= key < a[base + k]
+         */
+        private int gallopRight(int key, int[] a, int base, int len, int hint) {
+            int ofs = 1;
+            int lastOfs = 0;
+            if (compared(key < a[base + hint])) {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && compared(key < a[base + hint - ofs])) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) {
+                        ofs = maxOfs;
+                    }
+                }
+                if (ofs > maxOfs) {
+                    ofs = maxOfs;
+                }
+                int temp = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - temp;
+            } else {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && compared(key >= a[base + hint + ofs])) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) {
+                        ofs = maxOfs;
+                    }
+                }
+                if (ofs > maxOfs) {
+                    ofs = maxOfs;
+                }
+                lastOfs += hint;
+                ofs += hint;
+            }
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (compared(key < a[base + m])) {
+                    ofs = m;
+                } else {
+                    lastOfs = m + 1;
+                }
+            }
+            return ofs;
+        }
+
+        /**
+         * 第一段较短，把第一段拷贝到辅助数组，从左往右合并
+         */
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            int[] a = arr;
+            int[] tmp = ensureCapacity(len1);
+            int cursor1 = 0;
+            int cursor2 = base2;
+            int dest = base1;
+            System.arraycopy(a, base1, tmp, cursor1, len1);
+
+            // mergeAt已经保证第二段的第一个元素比第一段的都小
+            a[dest++] = a[cursor2++];
+            if (--len2 == 0) {
+                System.arraycopy(tmp, cursor1, a, dest, len1);
+                return;
+            }
+            // mergeAt已经保证第一段的最后一个元素比第二段的都大
+            if (len1 == 1) {
+                System.arraycopy(a, cursor2, a, dest, len2);
+                a[dest + len2] = tmp[cursor1];
+                return;
+            }
+
+            int minGallop = this.minGallop;
+            outer:
+            while (true) {
+                // 两段各自连续赢了多少次
+                int count1 = 0;
+                int count2 = 0;
+                // 逐个比较，直到某一段连续赢了minGallop次
+                do {
+                    if (compared(a[cursor2] < tmp[cursor1])) {
+                        a[dest++] = a[cursor2++];
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        a[dest++] = tmp[cursor1++];
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 1) {
+                            break outer;
+                        }
+                    }
+                } while ((count1 | count2) < minGallop);
+
+                // 飞奔模式，直到两段每次整片拷贝的个数都不足MIN_GALLOP
+                do {
+                    count1 = gallopRight(a[cursor2], tmp, cursor1, len1, 0);
+                    if (count1 != 0) {
+                        System.arraycopy(tmp, cursor1, a, dest, count1);
+                        dest += count1;
+                        cursor1 += count1;
+                        len1 -= count1;
+                        if (len1 <= 1) {
+                            break outer;
+                        }
+                    }
+                    a[dest++] = a[cursor2++];
+                    if (--len2 == 0) {
+                        break outer;
+                    }
+
+                    count2 = gallopLeft(tmp[cursor1], a, cursor2, len2, 0);
+                    if (count2 != 0) {
+                        System.arraycopy(a, cursor2, a, dest, count2);
+                        dest += count2;
+                        cursor2 += count2;
+                        len2 -= count2;
+                        if (len2 == 0) {
+                            break outer;
+                        }
+                    }
+                    a[dest++] = tmp[cursor1++];
+                    if (--len1 == 1) {
+                        break outer;
+                    }
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+                if (minGallop < 0) {
+                    minGallop = 0;
+                }
+                // 退出飞奔模式，提高下次进入的门槛
+                minGallop += 2;
+            }
+            this.minGallop = Math.max(minGallop, 1);
+
+            if (len1 == 1) {
+                System.arraycopy(a, cursor2, a, dest, len2);
+                a[dest + len2] = tmp[cursor1];
+            } else {
+                System.arraycopy(tmp, cursor1, a, dest, len1);
+            }
+        }
+
+        /**
+         * 第二段较短，把第二段拷贝到辅助数组，从右往左合并，逻辑与{@link #mergeLo}对称
+         */
+        private void mergeHi(int base1, int len1, int base2, int len2) {
+            int[] a = arr;
+            int[] tmp = ensureCapacity(len2);
+            System.arraycopy(a, base2, tmp, 0, len2);
+
+            int cursor1 = base1 + len1 - 1;
+            int cursor2 = len2 - 1;
+            int dest = base2 + len2 - 1;
+
+            a[dest--] = a[cursor1--];
+            if (--len1 == 0) {
+                System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+                return;
+            }
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+                a[dest] = tmp[cursor2];
+                return;
+            }
+
+            int minGallop = this.minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+                do {
+                    if (compared(tmp[cursor2] < a[cursor1])) {
+                        a[dest--] = a[cursor1--];
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        a[dest--] = tmp[cursor2--];
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 1) {
+                            break outer;
+                        }
+                    }
+                } while ((count1 | count2) < minGallop);
+
+                do {
+                    count1 = len1 - gallopRight(tmp[cursor2], a, base1, len1, len1 - 1);
+                    if (count1 != 0) {
+                        dest -= count1;
+                        cursor1 -= count1;
+                        len1 -= count1;
+                        System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                        if (len1 == 0) {
+                            break outer;
+                        }
+                    }
+                    a[dest--] = tmp[cursor2--];
+                    if (--len2 == 1) {
+                        break outer;
+                    }
+
+                    count2 = len2 - gallopLeft(a[cursor1], tmp, 0, len2, len2 - 1);
+                    if (count2 != 0) {
+                        dest -= count2;
+                        cursor2 -= count2;
+                        len2 -= count2;
+                        System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                        if (len2 <= 1) {
+                            break outer;
+                        }
+                    }
+                    a[dest--] = a[cursor1--];
+                    if (--len1 == 0) {
+                        break outer;
+                    }
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+                if (minGallop < 0) {
+                    minGallop = 0;
+                }
+                minGallop += 2;
+            }
+            this.minGallop = Math.max(minGallop, 1);
+
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+                a[dest] = tmp[cursor2];
+            } else {
+                System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+            }
+        }
+
+        /**
+         * 辅助数组不够大时按2的幂扩容，不超过数组长度的一半
+         */
+        private int[] ensureCapacity(int minCapacity) {
+            if (tmp.length < minCapacity) {
+                int newSize = Integer.highestOneBit(minCapacity) << 1;
+                // 溢出
+                if (newSize < 0) {
+                    newSize = minCapacity;
+                } else {
+                    newSize = Math.min(newSize, arr.length >>> 1);
+                }
+                tmp = new int[newSize];
+            }
+            return tmp;
+        }
+
+        /**
+         * 统计一次比较，原样返回比较结果
+         */
+        private boolean compared(boolean result) {
+            counter.comparisons++;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.ddf.datastructure.sort;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行排序
+ *
+ * 包中其它的排序都是单线程的，数组非常大(千万级别)的时候其余的CPU核心都是空闲的，这里基于{@link ForkJoinPool}实现一个并行的归并排序：
+ *
+ * 1. 拆分：将数组不断对半拆分，直到每一段的长度不超过阈值threshold，拆出来的左右两段交给ForkJoin框架并行执行；
+ * 2. 叶子排序：长度不超过阈值的小段直接使用{@link ShellSort#insertSort(int[], int, int)}在原数组上排序，不再继续拆分；
+ * 3. 合并：左右两段都有序之后需要合并，合并本身也是并行的，取较长的那一段的中间元素，在较短的那一段中二分查找它应该插入的位置，
+ *      这样两段都被切成了左右两部分，左边两部分合并到结果的前面，右边两部分合并到结果的后面，两次合并互不影响，同样交给ForkJoin并行执行，
+ *      直到需要合并的元素个数不超过阈值，再顺序合并
+ *
+ * 归并需要一个和原数组一样大的辅助数组，为了避免每次合并完成后再把辅助数组拷贝回原数组，每一层都在原数组和辅助数组之间来回切换，
+ * 子任务排好的结果放在哪个数组由上一层决定，合并的时候直接合并到上一层需要的那个数组中
+ *
+ * 时间复杂度O(nlogn)，理想情况下除以并行度；空间复杂度O(n)
+ *
+ * @author dongfang.ding
+ * @date 2019/7/2 10:12
+ */
+public class ParallelSort implements AutoCloseable {
+
+    /**
+     * 默认的拆分阈值，数组长度不超过该值时不再拆分
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 13;
+
+    /**
+     * 阈值的最小值，阈值太小的话任务拆分的开销会远大于排序本身，而且合并时要保证拆分后的两部分都能比原来小
+     */
+    private static final int MIN_THRESHOLD = 1 << 4;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * 线程池是否是自己创建的，自己创建的才需要关闭
+     */
+    private final boolean ownPool;
+
+    private final int threshold;
+
+    public static void main(String[] args) {
+        int[] arr = new int[5_000_000];
+        Random random = new Random();
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = random.nextInt();
+        }
+        try (ParallelSort parallelSort = new ParallelSort(Runtime.getRuntime().availableProcessors(), DEFAULT_THRESHOLD)) {
+            long start = System.currentTimeMillis();
+            int[] sort = parallelSort.sort(arr);
+            System.out.println("排序耗时： " + (System.currentTimeMillis() - start) + "ms");
+            int[] expected = Arrays.copyOf(arr, arr.length);
+            Arrays.sort(expected);
+            System.out.println("排序结果是否正确： " + Arrays.equals(expected, sort));
+        }
+    }
+
+    /**
+     * 使用公共的ForkJoinPool以及默认的拆分阈值
+     */
+    public ParallelSort() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * 按照指定的并行度创建一个新的线程池，使用完成后需要调用{@link #close()}关闭线程池
+     *
+     * @param parallelism 并行度，一般设置为CPU核心数
+     * @param threshold   拆分阈值，数组长度不超过该值时不再拆分，直接排序
+     */
+    public ParallelSort(int parallelism, int threshold) {
+        this(new ForkJoinPool(parallelism), threshold, true);
+    }
+
+    /**
+     * 使用外部传入的线程池，线程池的生命周期由调用方自己管理
+     *
+     * @param pool
+     * @param threshold 拆分阈值，数组长度不超过该值时不再拆分，直接排序
+     */
+    public ParallelSort(ForkJoinPool pool, int threshold) {
+        this(pool, threshold, false);
+    }
+
+    private ParallelSort(ForkJoinPool pool, int threshold, boolean ownPool) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.pool = pool;
+        this.ownPool = ownPool;
+        this.threshold = Math.max(threshold, MIN_THRESHOLD);
+    }
+
+    /**
+     * 并行排序，与包中的其它排序一样不改变原数组，返回排好序的新数组
+     *
+     * @param arr
+     * @return
+     */
+    public int[] sort(int[] arr) {
+        // 拷贝数组，不改变原数组的值
+        int[] dest = Arrays.copyOf(arr, arr.length);
+        // 数组本身就不超过阈值或者只有一个线程，拆分没有任何意义
+        if (dest.length <= threshold || pool.getParallelism() == 1) {
+            ShellSort.insertSort(dest, 0, dest.length);
+            return dest;
+        }
+        int[] work = new int[dest.length];
+        pool.invoke(new SortTask(dest, work, 0, dest.length, false));
+        return dest;
+    }
+
+    /**
+     * 并行排序，并把所有任务的比较、移动次数以及总耗时报告给metrics，metrics为null时与{@link #sort(int[])}完全一样；
+     * 统计走单独的{@link CountingSortTask}和{@link CountingMergeTask}，每个任务使用自己的计数器，子任务完成之后再累加到父任务中，
+     * 计数时线程之间不会争用
+     *
+     * @param arr
+     * @param metrics 统计结果的接收者，可以为null
+     * @return
+     */
+    public int[] sort(int[] arr, SortMetrics metrics) {
+        if (metrics == null) {
+            return sort(arr);
+        }
+        SortCounter counter = new SortCounter();
+        int[] dest = Arrays.copyOf(arr, arr.length);
+        if (dest.length <= threshold || pool.getParallelism() == 1) {
+            ShellSort.insertSort(dest, 0, dest.length, ShellSort.DEFAULT_GAP_SEQUENCE, counter);
+        } else {
+            int[] work = new int[dest.length];
+            pool.invoke(new CountingSortTask(dest, work, 0, dest.length, false, counter));
+        }
+        counter.report(metrics, "ParallelSort", dest.length);
+        return dest;
+    }
+
+    /**
+     * 关闭自己创建的线程池，外部传入的线程池和公共线程池不会被关闭
+     */
+    @Override
+    public void close() {
+        if (ownPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 排序任务，对[lo, hi)区间进行排序，排序结果放在intoWork指定的数组中
+     */
+    private class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+
+        private final int[] work;
+
+        private final int lo;
+
+        private final int hi;
+
+        /**
+         * 为true时排序结果放入辅助数组work中，否则放入原数组arr中
+         */
+        private final boolean intoWork;
+
+        SortTask(int[] arr, int[] work, int lo, int hi, boolean intoWork) {
+            this.arr = arr;
+            this.work = work;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoWork = intoWork;
+        }
+
+        @Override
+        protected void compute() {
+            int size = hi - lo;
+            // 不超过阈值，直接在原数组上排序，如果上一层需要的结果在辅助数组中，则拷贝过去
+            if (size <= threshold) {
+                ShellSort.insertSort(arr, lo, hi);
+                if (intoWork) {
+                    System.arraycopy(arr, lo, work, lo, size);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            // 左右两段的结果放在另外一个数组中，这样本层合并的时候就可以直接从那个数组合并到本层需要的数组中
+            invokeAll(new SortTask(arr, work, lo, mid, !intoWork), new SortTask(arr, work, mid, hi, !intoWork));
+            int[] src = intoWork ? arr : work;
+            int[] dest = intoWork ? work : arr;
+            new MergeTask(src, dest, lo, mid, mid, hi, lo).compute();
+        }
+    }
+
+    /**
+     * 合并任务，将src中的有序区间[lo1, hi1)和[lo2, hi2)合并到dest中从out开始的位置
+     */
+    private class MergeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+
+        private final int[] dest;
+
+        private final int lo1;
+
+        private final int hi1;
+
+        private final int lo2;
+
+        private final int hi2;
+
+        private final int out;
+
+        MergeTask(int[] src, int[] dest, int lo1, int hi1, int lo2, int hi2, int out) {
+            this.src = src;
+            this.dest = dest;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= threshold) {
+                merge();
+                return;
+            }
+            // 始终以较长的那一段来取中间元素，保证拆分后两部分都比原来小
+            if (n1 < n2) {
+                new MergeTask(src, dest, lo2, hi2, lo1, hi1, out).compute();
+                return;
+            }
+            int m1 = (lo1 + hi1) >>> 1;
+            int m2 = lowerBound(src, lo2, hi2, src[m1]);
+            // 左边两部分合并后的元素个数，就是右边两部分合并的起始位置
+            int k = out + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new MergeTask(src, dest, lo1, m1, lo2, m2, out), new MergeTask(src, dest, m1, hi1, m2, hi2, k));
+        }
+
+        /**
+         * 顺序合并两段有序区间
+         */
+        private void merge() {
+            int i = lo1;
+            int j = lo2;
+            int k = out;
+            while (i < hi1 && j < hi2) {
+                dest[k++] = src[i] <= src[j] ? src[i++] : src[j++];
+            }
+            // 剩余的元素直接拷贝
+            System.arraycopy(src, i, dest, k, hi1 - i);
+            System.arraycopy(src, j, dest, k + hi1 - i, hi2 - j);
+        }
+    }
+
+    /**
+     * 在有序区间[lo, hi)中二分查找第一个不小于key的角标
+     */
+    private static int lowerBound(int[] arr, int lo, int hi, int key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (arr[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 与{@link SortTask}逻辑一致，额外统计比较和移动次数
+     */
+    private class CountingSortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+
+        private final int[] work;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final boolean intoWork;
+
+        /**
+         * 本任务的计数器
+         */
+        private final SortCounter counter;
+
+        CountingSortTask(int[] arr, int[] work, int lo, int hi, boolean intoWork, SortCounter counter) {
+            this.arr = arr;
+            this.work = work;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoWork = intoWork;
+            this.counter = counter;
+        }
+
+        @Override
+        protected void compute() {
+            int size = hi - lo;
+            if (size <= threshold) {
+                ShellSort.insertSort(arr, lo, hi, ShellSort.DEFAULT_GAP_SEQUENCE, counter);
+                if (intoWork) {
+                    System.arraycopy(arr, lo, work, lo, size);
+                    counter.moves += size;
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            CountingSortTask left = new CountingSortTask(arr, work, lo, mid, !intoWork, new SortCounter());
+            CountingSortTask right = new CountingSortTask(arr, work, mid, hi, !intoWork, new SortCounter());
+            invokeAll(left, right);
+            counter.add(left.counter);
+            counter.add(right.counter);
+            int[] src = intoWork ? arr : work;
+            int[] dest = intoWork ? work : arr;
+            new CountingMergeTask(src, dest, lo, mid, mid, hi, lo, counter).compute();
+        }
+    }
+
+    /**
+     * 与{@link MergeTask}逻辑一致，额外统计比较和移动次数
+     */
+    private class CountingMergeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+
+        private final int[] dest;
+
+        private final int lo1;
+
+        private final int hi1;
+
+        private final int lo2;
+
+        private final int hi2;
+
+        private final int out;
+
+        /**
+         * 本任务的计数器
+         */
+        private final SortCounter counter;
+
+        CountingMergeTask(int[] src, int[] dest, int lo1, int hi1, int lo2, int hi2, int out, SortCounter counter) {
+            this.src = src;
+            this.dest = dest;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.out = out;
+            this.counter = counter;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= threshold) {
+                merge();
+                return;
+            }
+            if (n1 < n2) {
+                new CountingMergeTask(src, dest, lo2, hi2, lo1, hi1, out, counter).compute();
+                return;
+            }
+            int m1 = (lo1 + hi1) >>> 1;
+            int m2 = lowerBound(src, lo2, hi2, src[m1], counter);
+            int k = out + (m1 - lo1) + (m2 - lo2);
+            CountingMergeTask left = new CountingMergeTask(src, dest, lo1, m1, lo2, m2, out, new SortCounter());
+            CountingMergeTask right = new CountingMergeTask(src, dest, m1, hi1, m2, hi2, k, new SortCounter());
+            invokeAll(left, right);
+            counter.add(left.counter);
+            counter.add(right.counter);
+        }
+
+        private void merge() {
+            int i = lo1;
+            int j = lo2;
+            int k = out;
+            while (i < hi1 && j < hi2) {
+                dest[k++] = src[i] <= src[j] ? src[i++] : src[j++];
+            }
+            System.arraycopy(src, i, dest, k, hi1 - i);
+            System.arraycopy(src, j, dest, k + hi1 - i, hi2 - j);
+            // 循环中每写入一个元素比较一次，所有元素都写入一次
+            counter.comparisons += (i - lo1) + (j - lo2);
+            counter.moves += (hi1 - lo1) + (hi2 - lo2);
+        }
+    }
+
+    /**
+     * 与{@link #lowerBound(int[], int, int, int)}逻辑一致，额外统计比较次数
+     */
+    private static int lowerBound(int[] arr, int lo, int hi, int key, SortCounter counter) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (arr[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+            counter.comparisons++;
+        }
+        return lo;
+    }
+}
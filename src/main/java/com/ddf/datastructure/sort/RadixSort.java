@@ -0,0 +1,536 @@
+package com.ddf.datastructure.sort;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 基数排序(LSD，从最低位开始)
+ *
+ * 不比较元素大小，而是把元素按照二进制切分成若干个"位"(digit)，每一位有2^digitBits种取值，相当于2^digitBits个桶，
+ * 从最低位开始，每一轮按照当前位的值把元素依次放到对应的桶里，然后按照桶的顺序收集回来；由于每一轮的分配都是稳定的，
+ * 高位相同的元素会保持低位已经排好的顺序，所以所有的位都处理完成后，数组就是有序的
+ *
+ * 1. 统计：每一轮都需要知道每个桶里有多少个元素，才能知道每个桶在结果数组中的起始位置；这里在排序开始前只遍历一次数组，
+ *      就把所有位的统计(直方图)一次性算出来；数组较大时按段拆分，每个线程统计自己那一段，最后再把各段的统计结果加起来；
+ * 2. 跳过：如果某一位上所有元素的值都一样，那么这一轮分配之后顺序不会有任何变化，直接跳过，比如元素都是比较小的正数时，高位的轮次都可以省掉；
+ * 3. 符号：int和long是补码表示，负数的最高位是1，直接按照无符号处理的话负数会排到正数后面，所以取位之前先把符号位取反，
+ *      这样负数的最高位变成0，正数的最高位变成1，按照无符号排序的结果就是正确的有符号顺序
+ *
+ * 每一位的宽度支持8位和11位，8位时每轮256个桶，统计数组很小，能全部放在L1缓存中；11位时每轮2048个桶，int只需要3轮，long需要6轮
+ *
+ * 时间复杂度O(n * 轮数)，空间复杂度O(n)，分配需要一个和原数组一样大的辅助数组，所以即使是在原数组上排序，也会申请这个辅助数组
+ *
+ * @author dongfang.ding
+ * @date 2019/7/5 11:20
+ */
+public class RadixSort {
+
+    /**
+     * 每一位8个bit
+     */
+    public static final int DIGIT_BITS_8 = 8;
+
+    /**
+     * 每一位11个bit
+     */
+    public static final int DIGIT_BITS_11 = 11;
+
+    /**
+     * 默认每一位的宽度，千万级别的随机int上实测11位比8位快15%左右，轮数减少带来的收益大于统计数组变大的缓存开销
+     */
+    public static final int DEFAULT_DIGIT_BITS = DIGIT_BITS_11;
+
+    /**
+     * 元素个数不超过该值时，基数排序的统计和辅助数组的开销比排序本身还大，直接使用内省排序
+     */
+    private static final int SMALL_THRESHOLD = 64;
+
+    /**
+     * 元素个数达到该值才会并行统计，每个线程统计的段也不会小于该值
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    public static void main(String[] args) {
+        int[] arr = {30, -15, 18, 17, -12, 15, 14, 13};
+        int[] sort = sort(arr);
+        System.out.println("排序前： " + Arrays.toString(arr));
+        System.out.println("排序后： " + Arrays.toString(sort));
+
+        int[] big = new int[10_000_000];
+        Random random = new Random();
+        for (int i = 0; i < big.length; i++) {
+            big[i] = random.nextInt();
+        }
+        long start = System.currentTimeMillis();
+        sort(big);
+        System.out.println("基数排序耗时： " + (System.currentTimeMillis() - start) + "ms");
+        start = System.currentTimeMillis();
+        ShellSort.insertSort(big);
+        System.out.println("希尔排序耗时： " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    public static int[] sort(int[] arr) {
+        // 拷贝数组，不改变原数组的值
+        int[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length, DEFAULT_DIGIT_BITS);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，排序结果写回原数组，但分配过程仍然需要一个辅助数组
+     *
+     * @param arr
+     */
+    public static void sortInPlace(int[] arr) {
+        sort(arr, 0, arr.length, DEFAULT_DIGIT_BITS);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，区间外的元素不受影响
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(int[] arr, int from, int to) {
+        sort(arr, from, to, DEFAULT_DIGIT_BITS);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，使用指定的位宽
+     *
+     * @param arr
+     * @param from      起始角标(包含)
+     * @param to        结束角标(不包含)
+     * @param digitBits 每一位的宽度，{@link #DIGIT_BITS_8}或者{@link #DIGIT_BITS_11}
+     */
+    public static void sort(int[] arr, int from, int to, int digitBits) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        checkDigitBits(digitBits);
+        radixSort(arr, from, to, digitBits, null);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，并把移动次数和耗时报告给metrics，metrics为null时与不统计的方法完全一样；
+     * 基数排序不比较元素，每一轮分配把每个元素移动一次，跳过的轮次不计
+     *
+     * @param arr
+     * @param from      起始角标(包含)
+     * @param to        结束角标(不包含)
+     * @param digitBits 每一位的宽度，{@link #DIGIT_BITS_8}或者{@link #DIGIT_BITS_11}
+     * @param metrics   统计结果的接收者，可以为null
+     */
+    public static void sort(int[] arr, int from, int to, int digitBits, SortMetrics metrics) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        checkDigitBits(digitBits);
+        if (metrics == null) {
+            radixSort(arr, from, to, digitBits, null);
+            return;
+        }
+        SortCounter counter = new SortCounter();
+        radixSort(arr, from, to, digitBits, counter);
+        counter.report(metrics, "RadixSort", to - from);
+    }
+
+    /**
+     * 计数器只在每一轮结束时累加一次，不统计时为null，不会影响分配的循环；调用方负责检查角标和位宽，{@link ExternalSort}生成顺串时也用它
+     */
+    static void radixSort(int[] arr, int from, int to, int digitBits, SortCounter counter) {
+        int size = to - from;
+        if (size <= SMALL_THRESHOLD) {
+            if (counter == null) {
+                IntroSort.sort(arr, from, to);
+            } else {
+                IntroSort.sort(arr, from, to, counter);
+            }
+            return;
+        }
+        int radix = 1 << digitBits;
+        int mask = radix - 1;
+        int passes = (Integer.SIZE + digitBits - 1) / digitBits;
+        int[] counts = histogram(arr, from, to, digitBits, passes);
+
+        int[] src = arr;
+        int srcOff = from;
+        int[] dest = new int[size];
+        int destOff = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            int base = pass * radix;
+            // 所有元素在这一位上都相同，分配后顺序不会变，跳过
+            if (isSingleBucket(counts, base, radix, size)) {
+                continue;
+            }
+            // 将每个桶的元素个数转换为每个桶在结果中的起始位置
+            toOffsets(counts, base, radix);
+            int shift = pass * digitBits;
+            for (int i = 0; i < size; i++) {
+                int val = src[srcOff + i];
+                int digit = ((val ^ Integer.MIN_VALUE) >>> shift) & mask;
+                dest[destOff + counts[base + digit]++] = val;
+            }
+            if (counter != null) {
+                counter.moves += size;
+            }
+            // 本轮的结果作为下一轮的输入
+            int[] tempArr = src;
+            src = dest;
+            dest = tempArr;
+            int tempOff = srcOff;
+            srcOff = destOff;
+            destOff = tempOff;
+        }
+        // 最后一轮的结果如果在辅助数组中，需要拷贝回原数组
+        if (src != arr) {
+            System.arraycopy(src, srcOff, arr, from, size);
+            if (counter != null) {
+                counter.moves += size;
+            }
+        }
+    }
+
+    public static long[] sort(long[] arr) {
+        // 拷贝数组，不改变原数组的值
+        long[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length, DEFAULT_DIGIT_BITS);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，排序结果写回原数组，但分配过程仍然需要一个辅助数组
+     *
+     * @param arr
+     */
+    public static void sortInPlace(long[] arr) {
+        sort(arr, 0, arr.length, DEFAULT_DIGIT_BITS);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，区间外的元素不受影响
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(long[] arr, int from, int to) {
+        sort(arr, from, to, DEFAULT_DIGIT_BITS);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，使用指定的位宽，逻辑与int[]完全一致
+     *
+     * @param arr
+     * @param from      起始角标(包含)
+     * @param to        结束角标(不包含)
+     * @param digitBits 每一位的宽度，{@link #DIGIT_BITS_8}或者{@link #DIGIT_BITS_11}
+     */
+    public static void sort(long[] arr, int from, int to, int digitBits) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        checkDigitBits(digitBits);
+        radixSort(arr, from, to, digitBits, null);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，并把移动次数和耗时报告给metrics，metrics为null时与不统计的方法完全一样；
+     * 基数排序不比较元素，每一轮分配把每个元素移动一次，跳过的轮次不计
+     *
+     * @param arr
+     * @param from      起始角标(包含)
+     * @param to        结束角标(不包含)
+     * @param digitBits 每一位的宽度，{@link #DIGIT_BITS_8}或者{@link #DIGIT_BITS_11}
+     * @param metrics   统计结果的接收者，可以为null
+     */
+    public static void sort(long[] arr, int from, int to, int digitBits, SortMetrics metrics) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        checkDigitBits(digitBits);
+        if (metrics == null) {
+            radixSort(arr, from, to, digitBits, null);
+            return;
+        }
+        SortCounter counter = new SortCounter();
+        radixSort(arr, from, to, digitBits, counter);
+        counter.report(metrics, "RadixSort", to - from);
+    }
+
+    static void radixSort(long[] arr, int from, int to, int digitBits, SortCounter counter) {
+        int size = to - from;
+        // 包中没有long的比较排序可以用，元素较少时也直接基数排序
+        if (size <= 1) {
+            return;
+        }
+        int radix = 1 << digitBits;
+        int mask = radix - 1;
+        int passes = (Long.SIZE + digitBits - 1) / digitBits;
+        int[] counts = histogram(arr, from, to, digitBits, passes);
+
+        long[] src = arr;
+        int srcOff = from;
+        long[] dest = new long[size];
+        int destOff = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            int base = pass * radix;
+            if (isSingleBucket(counts, base, radix, size)) {
+                continue;
+            }
+            toOffsets(counts, base, radix);
+            int shift = pass * digitBits;
+            for (int i = 0; i < size; i++) {
+                long val = src[srcOff + i];
+                int digit = (int) ((val ^ Long.MIN_VALUE) >>> shift) & mask;
+                dest[destOff + counts[base + digit]++] = val;
+            }
+            if (counter != null) {
+                counter.moves += size;
+            }
+            long[] tempArr = src;
+            src = dest;
+            dest = tempArr;
+            int tempOff = srcOff;
+            srcOff = destOff;
+            destOff = tempOff;
+        }
+        if (src != arr) {
+            System.arraycopy(src, srcOff, arr, from, size);
+            if (counter != null) {
+                counter.moves += size;
+            }
+        }
+    }
+
+    /**
+     * 按照keys排序，values中对应位置的元素跟着一起移动；基数排序是稳定的，key相同的元素保持原来的先后顺序，
+     * 元素较少时改用同样稳定的插入排序，调用方负责检查角标，{@link KeySort}用它同时排序key和下标
+     */
+    static void sort(long[] keys, int[] values, int from, int to) {
+        int size = to - from;
+        if (size <= SMALL_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                long key = keys[i];
+                int value = values[i];
+                int j = i;
+                while (j > from && key < keys[j - 1]) {
+                    keys[j] = keys[j - 1];
+                    values[j] = values[j - 1];
+                    j--;
+                }
+                keys[j] = key;
+                values[j] = value;
+            }
+            return;
+        }
+        int digitBits = DEFAULT_DIGIT_BITS;
+        int radix = 1 << digitBits;
+        int mask = radix - 1;
+        int passes = (Long.SIZE + digitBits - 1) / digitBits;
+        int[] counts = histogram(keys, from, to, digitBits, passes);
+
+        long[] srcKeys = keys;
+        int[] srcValues = values;
+        int srcOff = from;
+        long[] destKeys = new long[size];
+        int[] destValues = new int[size];
+        int destOff = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            int base = pass * radix;
+            if (isSingleBucket(counts, base, radix, size)) {
+                continue;
+            }
+            toOffsets(counts, base, radix);
+            int shift = pass * digitBits;
+            for (int i = 0; i < size; i++) {
+                long key = srcKeys[srcOff + i];
+                int digit = (int) ((key ^ Long.MIN_VALUE) >>> shift) & mask;
+                int pos = destOff + counts[base + digit]++;
+                destKeys[pos] = key;
+                destValues[pos] = srcValues[srcOff + i];
+            }
+            long[] tempKeys = srcKeys;
+            srcKeys = destKeys;
+            destKeys = tempKeys;
+            int[] tempValues = srcValues;
+            srcValues = destValues;
+            destValues = tempValues;
+            int tempOff = srcOff;
+            srcOff = destOff;
+            destOff = tempOff;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, srcOff, keys, from, size);
+            System.arraycopy(srcValues, srcOff, values, from, size);
+        }
+    }
+
+    private static void checkDigitBits(int digitBits) {
+        if (digitBits != DIGIT_BITS_8 && digitBits != DIGIT_BITS_11) {
+            throw new IllegalArgumentException("digitBits must be 8 or 11");
+        }
+    }
+
+    /**
+     * 某一位上是否所有元素都落在同一个桶里
+     */
+    private static boolean isSingleBucket(int[] counts, int base, int radix, int size) {
+        for (int i = base; i < base + radix; i++) {
+            if (counts[i] != 0) {
+                return counts[i] == size;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将每个桶的元素个数原地转换为每个桶的起始位置(前缀和)
+     */
+    private static void toOffsets(int[] counts, int base, int radix) {
+        int sum = 0;
+        for (int i = base; i < base + radix; i++) {
+            int count = counts[i];
+            counts[i] = sum;
+            sum += count;
+        }
+    }
+
+    /**
+     * 统计所有轮次每个桶的元素个数，第pass轮第digit个桶的个数在counts[pass * radix + digit]中
+     */
+    private static int[] histogram(int[] arr, int from, int to, int digitBits, int passes) {
+        if (to - from < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            return countInt(arr, from, to, digitBits, passes);
+        }
+        return ForkJoinPool.commonPool().invoke(new IntHistogramTask(arr, from, to, digitBits, passes, segment(to - from)));
+    }
+
+    private static int[] histogram(long[] arr, int from, int to, int digitBits, int passes) {
+        if (to - from < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            return countLong(arr, from, to, digitBits, passes);
+        }
+        return ForkJoinPool.commonPool().invoke(new LongHistogramTask(arr, from, to, digitBits, passes, segment(to - from)));
+    }
+
+    /**
+     * 每个线程统计的段的大小，每个线程分到几段，方便负载均衡
+     */
+    private static int segment(int size) {
+        return Math.max(PARALLEL_THRESHOLD, size / (ForkJoinPool.getCommonPoolParallelism() * 4));
+    }
+
+    private static int[] countInt(int[] arr, int from, int to, int digitBits, int passes) {
+        int radix = 1 << digitBits;
+        int mask = radix - 1;
+        int[] counts = new int[passes * radix];
+        for (int i = from; i < to; i++) {
+            int key = arr[i] ^ Integer.MIN_VALUE;
+            for (int pass = 0, shift = 0; pass < passes; pass++, shift += digitBits) {
+                counts[pass * radix + ((key >>> shift) & mask)]++;
+            }
+        }
+        return counts;
+    }
+
+    private static int[] countLong(long[] arr, int from, int to, int digitBits, int passes) {
+        int radix = 1 << digitBits;
+        int mask = radix - 1;
+        int[] counts = new int[passes * radix];
+        for (int i = from; i < to; i++) {
+            long key = arr[i] ^ Long.MIN_VALUE;
+            for (int pass = 0, shift = 0; pass < passes; pass++, shift += digitBits) {
+                counts[pass * radix + ((int) (key >>> shift) & mask)]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 两段的统计结果相加，结果放在left中
+     */
+    private static int[] merge(int[] left, int[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+
+    /**
+     * 并行统计int数组的直方图，每段由一个线程单独统计到自己的数组中，互不干扰，最后再合并
+     */
+    private static class IntHistogramTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+
+        private final int from;
+
+        private final int to;
+
+        private final int digitBits;
+
+        private final int passes;
+
+        private final int segment;
+
+        IntHistogramTask(int[] arr, int from, int to, int digitBits, int passes, int segment) {
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+            this.digitBits = digitBits;
+            this.passes = passes;
+            this.segment = segment;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= segment) {
+                return countInt(arr, from, to, digitBits, passes);
+            }
+            int mid = (from + to) >>> 1;
+            IntHistogramTask left = new IntHistogramTask(arr, from, mid, digitBits, passes, segment);
+            left.fork();
+            int[] right = new IntHistogramTask(arr, mid, to, digitBits, passes, segment).compute();
+            return merge(left.join(), right);
+        }
+    }
+
+    /**
+     * 并行统计long数组的直方图
+     */
+    private static class LongHistogramTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] arr;
+
+        private final int from;
+
+        private final int to;
+
+        private final int digitBits;
+
+        private final int passes;
+
+        private final int segment;
+
+        LongHistogramTask(long[] arr, int from, int to, int digitBits, int passes, int segment) {
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+            this.digitBits = digitBits;
+            this.passes = passes;
+            this.segment = segment;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= segment) {
+                return countLong(arr, from, to, digitBits, passes);
+            }
+            int mid = (from + to) >>> 1;
+            LongHistogramTask left = new LongHistogramTask(arr, from, mid, digitBits, passes, segment);
+            left.fork();
+            int[] right = new LongHistogramTask(arr, mid, to, digitBits, passes, segment).compute();
+            return merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.ddf.datastructure.sort;
+
+import jdk.incubator.foreign.MemoryAccess;
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * 堆外排序，直接对{@link MemorySegment}中的int或long排序
+ *
+ * Java数组最多只能放2^31-1个元素，而且几个GB的数组放在堆里，GC的停顿也很难看；这里直接在堆外内存上排序，
+ * 下标全部使用long，元素个数只受内存(或文件)大小限制，数据不经过堆，也不会产生任何拷贝：
+ *
+ * 1. 内存映射的文件：{@link MemorySegment#mapFile}映射出来的段，排序直接写回文件，由操作系统负责换页；
+ * 2. 堆外分配的内存：{@link MemorySegment#allocateNative(long, ResourceScope)}分配的段，随着{@link ResourceScope}关闭而释放
+ *
+ * 提供两种算法，逻辑与{@link ShellSort#insertSort(int[], int, int)}和{@link IntroSort}一致，只是把数组的读写换成了段的读写：
+ * 希尔排序不需要任何额外空间，增量序列与{@link StandardGapSequence#SEDGEWICK}相同，只是在long范围内计算；
+ * 内省排序是默认的算法，快速排序 + 堆排序兜底 + 插入排序收尾，最差O(nlogn)，递归深度O(logn)
+ *
+ * 段中的元素按本机字节序({@link java.nio.ByteOrder#nativeOrder()})读写，映射的文件也要按本机字节序写入，
+ * 比如用{@link ExternalSort}生成时传入本机字节序
+ *
+ * JDK 17中外部内存API还在孵化中(jdk.incubator.foreign)，编译和运行时都需要加上--add-modules jdk.incubator.foreign；
+ * 正式版(java.lang.foreign)中{@link MemoryAccess#getIntAtIndex(MemorySegment, long)}对应segment.getAtIndex(ValueLayout.JAVA_INT, i)，
+ * {@link ResourceScope}对应Arena，算法本身不需要任何改动
+ *
+ * @author dongfang.ding
+ * @date 2019/7/18 14:10
+ */
+public final class SegmentSort {
+
+    /**
+     * 区间长度不超过该值时直接插入排序
+     */
+    private static final int INSERTION_THRESHOLD = 24;
+
+    /**
+     * 区间长度超过该值时，使用九个元素来选取基准值
+     */
+    private static final int NINTHER_THRESHOLD = 128;
+
+    /**
+     * long范围内Sedgewick序列的最大项数，4^31已经接近long的上限
+     */
+    private static final int MAX_GAP_INDEX = 31;
+
+    private SegmentSort() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        long count = 10_000_000L;
+        Random random = new Random();
+        // 堆外分配的内存，scope关闭时释放
+        try (ResourceScope scope = ResourceScope.newConfinedScope()) {
+            MemorySegment segment = MemorySegment.allocateNative(count * Long.BYTES, Long.BYTES, scope);
+            for (long i = 0; i < count; i++) {
+                MemoryAccess.setLongAtIndex(segment, i, random.nextLong());
+            }
+            long start = System.currentTimeMillis();
+            sortLongs(segment);
+            System.out.println("堆外" + count + "个long排序耗时： " + (System.currentTimeMillis() - start) + "ms，结果是否正确： "
+                    + isSortedLongs(segment));
+        }
+        // 内存映射的文件，排序结果直接写回文件
+        Path file = Files.createTempFile("segment-sort-", ".bin");
+        try (ResourceScope scope = ResourceScope.newConfinedScope()) {
+            MemorySegment segment = MemorySegment.mapFile(file, 0, count * Integer.BYTES, FileChannel.MapMode.READ_WRITE, scope);
+            for (long i = 0; i < count; i++) {
+                MemoryAccess.setIntAtIndex(segment, i, random.nextInt());
+            }
+            long start = System.currentTimeMillis();
+            sortInts(segment);
+            System.out.println("映射文件" + count + "个int排序耗时： " + (System.currentTimeMillis() - start) + "ms，结果是否正确： "
+                    + isSortedInts(segment));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 对段中的所有int排序，默认使用内省排序
+     *
+     * @param segment 按本机字节序存放的int，大小必须是Integer.BYTES的整数倍
+     */
+    public static void sortInts(MemorySegment segment) {
+        sortInts(segment, 0, count(segment, Integer.BYTES));
+    }
+
+    /**
+     * 用内省排序对段中第[from, to)个int排序
+     *
+     * @param segment
+     * @param from    起始下标(包含)
+     * @param to      结束下标(不包含)
+     */
+    public static void sortInts(MemorySegment segment, long from, long to) {
+        checkRange(segment, Integer.BYTES, from, to);
+        introSortInts(segment, from, to, 2 * floorLog2(to - from));
+    }
+
+    /**
+     * 对段中的所有int做希尔排序，不需要任何额外的空间
+     *
+     * @param segment 按本机字节序存放的int，大小必须是Integer.BYTES的整数倍
+     */
+    public static void shellSortInts(MemorySegment segment) {
+        shellSortInts(segment, 0, count(segment, Integer.BYTES));
+    }
+
+    /**
+     * 用希尔排序(移位法)对段中第[from, to)个int排序
+     *
+     * @param segment
+     * @param from    起始下标(包含)
+     * @param to      结束下标(不包含)
+     */
+    public static void shellSortInts(MemorySegment segment, long from, long to) {
+        checkRange(segment, Integer.BYTES, from, to);
+        for (long gap = firstGap(to - from); gap > 0; gap = nextGap(gap)) {
+            for (long i = from + gap; i < to; i++) {
+                int insertVal = MemoryAccess.getIntAtIndex(segment, i);
+                long j = i;
+                while (j - gap >= from) {
+                    int prev = MemoryAccess.getIntAtIndex(segment, j - gap);
+                    if (insertVal >= prev) {
+                        break;
+                    }
+                    MemoryAccess.setIntAtIndex(segment, j, prev);
+                    j -= gap;
+                }
+                if (j != i) {
+                    MemoryAccess.setIntAtIndex(segment, j, insertVal);
+                }
+            }
+        }
+    }
+
+    private static void introSortInts(MemorySegment segment, long lo, long hi, int depthLimit) {
+        while (hi - lo > INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSortInts(segment, lo, hi);
+                return;
+            }
+            long p = partitionInts(segment, lo, hi);
+            if (p - lo < hi - p - 1) {
+                introSortInts(segment, lo, p, depthLimit);
+                lo = p + 1;
+            } else {
+                introSortInts(segment, p + 1, hi, depthLimit);
+                hi = p;
+            }
+        }
+        insertionSortInts(segment, lo, hi);
+    }
+
+    private static long partitionInts(MemorySegment segment, long lo, long hi) {
+        long size = hi - lo;
+        long mid = lo + (size >>> 1);
+        long pivotIndex;
+        if (size > NINTHER_THRESHOLD) {
+            long step = size >>> 3;
+            long a = medianInts(segment, lo, lo + step, lo + 2 * step);
+            long b = medianInts(segment, mid - step, mid, mid + step);
+            long c = medianInts(segment, hi - 1 - 2 * step, hi - 1 - step, hi - 1);
+            pivotIndex = medianInts(segment, a, b, c);
+        } else {
+            pivotIndex = medianInts(segment, lo, mid, hi - 1);
+        }
+        swapInts(segment, lo, pivotIndex);
+        int pivot = MemoryAccess.getIntAtIndex(segment, lo);
+        long i = lo;
+        long j = hi;
+        while (true) {
+            do {
+                i++;
+            } while (i < hi - 1 && MemoryAccess.getIntAtIndex(segment, i) < pivot);
+            do {
+                j--;
+            } while (pivot < MemoryAccess.getIntAtIndex(segment, j));
+            if (i >= j) {
+                break;
+            }
+            swapInts(segment, i, j);
+        }
+        swapInts(segment, lo, j);
+        return j;
+    }
+
+    private static long medianInts(MemorySegment segment, long a, long b, long c) {
+        int va = MemoryAccess.getIntAtIndex(segment, a);
+        int vb = MemoryAccess.getIntAtIndex(segment, b);
+        int vc = MemoryAccess.getIntAtIndex(segment, c);
+        if (va < vb) {
+            if (vb < vc) {
+                return b;
+            }
+            return va < vc ? c : a;
+        }
+        if (va < vc) {
+            return a;
+        }
+        return vb < vc ? c : b;
+    }
+
+    private static void heapSortInts(MemorySegment segment, long lo, long hi) {
+        long size = hi - lo;
+        for (long i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDownInts(segment, lo, i, size);
+        }
+        for (long end = size - 1; end > 0; end--) {
+            swapInts(segment, lo, lo + end);
+            siftDownInts(segment, lo, 0, end);
+        }
+    }
+
+    private static void siftDownInts(MemorySegment segment, long lo, long i, long size) {
+        int val = MemoryAccess.getIntAtIndex(segment, lo + i);
+        long half = size >>> 1;
+        while (i < half) {
+            long child = 2 * i + 1;
+            int childVal = MemoryAccess.getIntAtIndex(segment, lo + child);
+            if (child + 1 < size) {
+                int right = MemoryAccess.getIntAtIndex(segment, lo + child + 1);
+                if (childVal < right) {
+                    child++;
+                    childVal = right;
+                }
+            }
+            if (val >= childVal) {
+                break;
+            }
+            MemoryAccess.setIntAtIndex(segment, lo + i, childVal);
+            i = child;
+        }
+        MemoryAccess.setIntAtIndex(segment, lo + i, val);
+    }
+
+    private static void insertionSortInts(MemorySegment segment, long lo, long hi) {
+        for (long i = lo + 1; i < hi; i++) {
+            int insertVal = MemoryAccess.getIntAtIndex(segment, i);
+            long j = i;
+            while (j > lo) {
+                int prev = MemoryAccess.getIntAtIndex(segment, j - 1);
+                if (insertVal >= prev) {
+                    break;
+                }
+                MemoryAccess.setIntAtIndex(segment, j, prev);
+                j--;
+            }
+            MemoryAccess.setIntAtIndex(segment, j, insertVal);
+        }
+    }
+
+    private static void swapInts(MemorySegment segment, long i, long j) {
+        int temp = MemoryAccess.getIntAtIndex(segment, i);
+        MemoryAccess.setIntAtIndex(segment, i, MemoryAccess.getIntAtIndex(segment, j));
+        MemoryAccess.setIntAtIndex(segment, j, temp);
+    }
+
+    /**
+     * 对段中的所有long排序，默认使用内省排序
+     *
+     * @param segment 按本机字节序存放的long，大小必须是Long.BYTES的整数倍
+     */
+    public static void sortLongs(MemorySegment segment) {
+        sortLongs(segment, 0, count(segment, Long.BYTES));
+    }
+
+    /**
+     * 用内省排序对段中第[from, to)个long排序
+     *
+     * @param segment
+     * @param from    起始下标(包含)
+     * @param to      结束下标(不包含)
+     */
+    public static void sortLongs(MemorySegment segment, long from, long to) {
+        checkRange(segment, Long.BYTES, from, to);
+        introSortLongs(segment, from, to, 2 * floorLog2(to - from));
+    }
+
+    /**
+     * 对段中的所有long做希尔排序，不需要任何额外的空间
+     *
+     * @param segment 按本机字节序存放的long，大小必须是Long.BYTES的整数倍
+     */
+    public static void shellSortLongs(MemorySegment segment) {
+        shellSortLongs(segment, 0, count(segment, Long.BYTES));
+    }
+
+    /**
+     * 用希尔排序(移位法)对段中第[from, to)个long排序
+     *
+     * @param segment
+     * @param from    起始下标(包含)
+     * @param to      结束下标(不包含)
+     */
+    public static void shellSortLongs(MemorySegment segment, long from, long to) {
+        checkRange(segment, Long.BYTES, from, to);
+        for (long gap = firstGap(to - from); gap > 0; gap = nextGap(gap)) {
+            for (long i = from + gap; i < to; i++) {
+                long insertVal = MemoryAccess.getLongAtIndex(segment, i);
+                long j = i;
+                while (j - gap >= from) {
+                    long prev = MemoryAccess.getLongAtIndex(segment, j - gap);
+                    if (insertVal >= prev) {
+                        break;
+                    }
+                    MemoryAccess.setLongAtIndex(segment, j, prev);
+                    j -= gap;
+                }
+                if (j != i) {
+                    MemoryAccess.setLongAtIndex(segment, j, insertVal);
+                }
+            }
+        }
+    }
+
+    private static void introSortLongs(MemorySegment segment, long lo, long hi, int depthLimit) {
+        while (hi - lo > INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSortLongs(segment, lo, hi);
+                return;
+            }
+            long p = partitionLongs(segment, lo, hi);
+            if (p - lo < hi - p - 1) {
+                introSortLongs(segment, lo, p, depthLimit);
+                lo = p + 1;
+            } else {
+                introSortLongs(segment, p + 1, hi, depthLimit);
+                hi = p;
+            }
+        }
+        insertionSortLongs(segment, lo, hi);
+    }
+
+    private static long partitionLongs(MemorySegment segment, long lo, long hi) {
+        long size = hi - lo;
+        long mid = lo + (size >>> 1);
+        long pivotIndex;
+        if (size > NINTHER_THRESHOLD) {
+            long step = size >>> 3;
+            long a = medianLongs(segment, lo, lo + step, lo + 2 * step);
+            long b = medianLongs(segment, mid - step, mid, mid + step);
+            long c = medianLongs(segment, hi - 1 - 2 * step, hi - 1 - step, hi - 1);
+            pivotIndex = medianLongs(segment, a, b, c);
+        } else {
+            pivotIndex = medianLongs(segment, lo, mid, hi - 1);
+        }
+        swapLongs(segment, lo, pivotIndex);
+        long pivot = MemoryAccess.getLongAtIndex(segment, lo);
+        long i = lo;
+        long j = hi;
+        while (true) {
+            do {
+                i++;
+            } while (i < hi - 1 && MemoryAccess.getLongAtIndex(segment, i) < pivot);
+            do {
+                j--;
+            } while (pivot < MemoryAccess.getLongAtIndex(segment, j));
+            if (i >= j) {
+                break;
+            }
+            swapLongs(segment, i, j);
+        }
+        swapLongs(segment, lo, j);
+        return j;
+    }
+
+    private static long medianLongs(MemorySegment segment, long a, long b, long c) {
+        long va = MemoryAccess.getLongAtIndex(segment, a);
+        long vb = MemoryAccess.getLongAtIndex(segment, b);
+        long vc = MemoryAccess.getLongAtIndex(segment, c);
+        if (va < vb) {
+            if (vb < vc) {
+                return b;
+            }
+            return va < vc ? c : a;
+        }
+        if (va < vc) {
+            return a;
+        }
+        return vb < vc ? c : b;
+    }
+
+    private static void heapSortLongs(MemorySegment segment, long lo, long hi) {
+        long size = hi - lo;
+        for (long i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDownLongs(segment, lo, i, size);
+        }
+        for (long end = size - 1; end > 0; end--) {
+            swapLongs(segment, lo, lo + end);
+            siftDownLongs(segment, lo, 0, end);
+        }
+    }
+
+    private static void siftDownLongs(MemorySegment segment, long lo, long i, long size) {
+        long val = MemoryAccess.getLongAtIndex(segment, lo + i);
+        long half = size >>> 1;
+        while (i < half) {
+            long child = 2 * i + 1;
+            long childVal = MemoryAccess.getLongAtIndex(segment, lo + child);
+            if (child + 1 < size) {
+                long right = MemoryAccess.getLongAtIndex(segment, lo + child + 1);
+                if (childVal < right) {
+                    child++;
+                    childVal = right;
+                }
+            }
+            if (val >= childVal) {
+                break;
+            }
+            MemoryAccess.setLongAtIndex(segment, lo + i, childVal);
+            i = child;
+        }
+        MemoryAccess.setLongAtIndex(segment, lo + i, val);
+    }
+
+    private static void insertionSortLongs(MemorySegment segment, long lo, long hi) {
+        for (long i = lo + 1; i < hi; i++) {
+            long insertVal = MemoryAccess.getLongAtIndex(segment, i);
+            long j = i;
+            while (j > lo) {
+                long prev = MemoryAccess.getLongAtIndex(segment, j - 1);
+                if (insertVal >= prev) {
+                    break;
+                }
+                MemoryAccess.setLongAtIndex(segment, j, prev);
+                j--;
+            }
+            MemoryAccess.setLongAtIndex(segment, j, insertVal);
+        }
+    }
+
+    private static void swapLongs(MemorySegment segment, long i, long j) {
+        long temp = MemoryAccess.getLongAtIndex(segment, i);
+        MemoryAccess.setLongAtIndex(segment, i, MemoryAccess.getLongAtIndex(segment, j));
+        MemoryAccess.setLongAtIndex(segment, j, temp);
+    }
+
+    private static boolean isSortedInts(MemorySegment segment) {
+        long count = count(segment, Integer.BYTES);
+        for (long i = 1; i < count; i++) {
+            if (MemoryAccess.getIntAtIndex(segment, i - 1) > MemoryAccess.getIntAtIndex(segment, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSortedLongs(MemorySegment segment) {
+        long count = count(segment, Long.BYTES);
+        for (long i = 1; i < count; i++) {
+            if (MemoryAccess.getLongAtIndex(segment, i - 1) > MemoryAccess.getLongAtIndex(segment, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 段中元素的个数
+     */
+    private static long count(MemorySegment segment, int bytes) {
+        long size = segment.byteSize();
+        if (size % bytes != 0) {
+            throw new IllegalArgumentException("段的大小不是" + bytes + "的整数倍: " + size);
+        }
+        return size / bytes;
+    }
+
+    private static void checkRange(MemorySegment segment, int bytes, long from, long to) {
+        Objects.checkFromToIndex(from, to, count(segment, bytes));
+    }
+
+    /**
+     * Sedgewick序列的第k项，4^k + 3 * 2^(k-1) + 1，第0项为1
+     */
+    private static long gap(int k) {
+        return k == 0 ? 1 : (1L << (2 * k)) + 3 * (1L << (k - 1)) + 1;
+    }
+
+    /**
+     * 小于length的最大一项，length不超过1时为0，不需要排序
+     */
+    private static long firstGap(long length) {
+        if (length <= 1) {
+            return 0;
+        }
+        int k = 0;
+        while (k < MAX_GAP_INDEX && gap(k + 1) < length) {
+            k++;
+        }
+        return gap(k);
+    }
+
+    /**
+     * 比gap小的下一项，gap为1时返回0，结束排序
+     */
+    private static long nextGap(long gap) {
+        int k = 0;
+        while (gap(k + 1) < gap) {
+            k++;
+        }
+        return gap == 1 ? 0 : gap(k);
+    }
+
+    private static int floorLog2(long n) {
+        return n == 0 ? 0 : 63 - Long.numberOfLeadingZeros(n);
+    }
+}
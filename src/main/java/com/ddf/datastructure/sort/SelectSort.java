@@ -1,6 +1,9 @@
 package com.ddf.datastructure.sort;
 
 import java.util.Arrays;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
 
 /**
  * 选择排序
@@ -12,6 +15,16 @@ import java.util.Arrays;
  * 所以剩余的一个元素也是有序的
  * 最差时间复杂度O(n²),最好时间复杂度O(n)
  *
+ * 很多时候只需要最小(最大)的k个元素，选择排序找完前k轮就可以停下来了，但每一轮仍然要扫描剩余的全部元素，代价是O(nk)；
+ * {@link #topK(int[], int)}和{@link #partialSort(int[], int)}改用一个大小为k的大顶堆：堆顶是目前为止选出的k个元素中最大的，
+ * 后面的元素只有比堆顶小才需要替换堆顶并下沉，扫描完成后堆中就是最小的k个元素，再对堆做一次堆排序，总代价O(nlogk)，
+ * k远小于n时比完整排序省去了绝大部分工作；数据来自流或者迭代器时也只需要保留k个元素
+ *
+ * 需要最大的k个元素时，对每个元素按位取反：~x是严格递减的，而且不会像取负数那样在{@link Integer#MIN_VALUE}上溢出，
+ * 这样"最大的k个"就变成了"取反后最小的k个"，同一个大顶堆就可以处理
+ *
+ * 除了int[]，还提供了long[]、double[]、short[]、char[]的版本，避免装箱；double[]的顺序与{@link Double#compare(double, double)}一致
+ *
  * @author dongfang.ding
  * @date 2019/6/26 17:04
  */
@@ -23,21 +36,45 @@ public class SelectSort {
 
         System.out.println("排序前： " + Arrays.toString(arr));
         System.out.println("排序后： " + Arrays.toString(sort));
+        System.out.println("最小的3个： " + Arrays.toString(topK(arr, 3)));
+        System.out.println("最大的3个： " + Arrays.toString(topK(arr, 3, true)));
+        System.out.println("流中最小的3个： " + Arrays.toString(topK(IntStream.of(arr), 3)));
     }
 
     public static int[] sort(int[] arr) {
         int[] dest = new int[arr.length];
         // 不改变原数组
         System.arraycopy(arr, 0, dest, 0, dest.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(int[] arr) {
+        sort(arr, 0, arr.length);
+    }
 
+    /**
+     * 对原数组的[from, to)区间排序，区间外的元素不受影响，不会产生任何额外的数组拷贝
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(int[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
         int minIndex;
         int temp;
-        // 找dest.length - 1次，最后一个元素已经和所有已确定位置的元素都比较过，没必要再循环
-        for (int i = 0; i < dest.length - 1; i++) {
+        // 找区间长度 - 1次，最后一个元素已经和所有已确定位置的元素都比较过，没必要再循环
+        for (int i = from; i < to - 1; i++) {
             // 假定每一次找，剩余元素的第一个元素都是默认最小(最大)值
             minIndex = i;
             // 从当前剩余数组元素中的第二个元素开始和默认的剩余元素中的第一个元素比，确定最小值，然后依次类推和剩下的接着比较，直到找到最小的
-            for (int j = minIndex + 1; j < dest.length; j ++) {
+            for (int j = minIndex + 1; j < to; j ++) {
                 if (dest[minIndex] > dest[j]) {
                     minIndex = j;
                 }
@@ -49,6 +86,380 @@ public class SelectSort {
                 dest[minIndex] = temp;
             }
         }
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，并将本次排序的比较、交换次数上报给监听器
+     *
+     * @param dest
+     * @param from    起始角标(包含)
+     * @param to      结束角标(不包含)
+     * @param metrics 监听器，为null时与{@link #sort(int[], int, int)}完全一样
+     */
+    public static void sort(int[] dest, int from, int to, SortMetrics metrics) {
+        if (metrics == null) {
+            sort(dest, from, to);
+            return;
+        }
+        Objects.checkFromToIndex(from, to, dest.length);
+        SortCounter counter = new SortCounter();
+        int minIndex;
+        int temp;
+        for (int i = from; i < to - 1; i++) {
+            minIndex = i;
+            for (int j = minIndex + 1; j < to; j ++) {
+                counter.comparisons ++;
+                if (dest[minIndex] > dest[j]) {
+                    minIndex = j;
+                }
+            }
+            if (minIndex != i) {
+                temp = dest[i];
+                dest[i] = dest[minIndex];
+                dest[minIndex] = temp;
+                counter.swaps ++;
+            }
+        }
+        counter.report(metrics, "SelectSort", to - from);
+    }
+
+    /**
+     * 返回数组中最小的k个元素，按从小到大排好序，不改变原数组；k大于数组长度时返回整个数组排好序的结果
+     *
+     * @param arr
+     * @param k   需要的元素个数
+     * @return
+     */
+    public static int[] topK(int[] arr, int k) {
+        return topK(arr, k, false);
+    }
+
+    /**
+     * 返回数组中最小(最大)的k个元素，不改变原数组，只额外分配一个长度为k的数组
+     *
+     * @param arr
+     * @param k       需要的元素个数
+     * @param largest 为true时返回最大的k个元素，按从大到小排序；否则返回最小的k个元素，按从小到大排序
+     * @return
+     */
+    public static int[] topK(int[] arr, int k, boolean largest) {
+        checkK(k);
+        int flip = largest ? -1 : 0;
+        int size = Math.min(k, arr.length);
+        int[] heap = new int[size];
+        for (int i = 0; i < size; i++) {
+            heap[i] = arr[i] ^ flip;
+        }
+        heapify(heap, size);
+        for (int i = size; i < arr.length; i++) {
+            offer(heap, size, arr[i] ^ flip);
+        }
+        sortHeap(heap, size);
+        if (largest) {
+            for (int i = 0; i < size; i++) {
+                heap[i] = ~heap[i];
+            }
+        }
+        return heap;
+    }
+
+    /**
+     * 返回流中最小的k个元素，按从小到大排序；整个流只会遍历一次，任何时候只保留k个元素
+     *
+     * @param stream
+     * @param k      需要的元素个数
+     * @return
+     */
+    public static int[] topK(IntStream stream, int k) {
+        return topK(stream.iterator(), k, false);
+    }
+
+    /**
+     * 返回流中最小(最大)的k个元素
+     *
+     * @param stream
+     * @param k       需要的元素个数
+     * @param largest 为true时返回最大的k个元素，按从大到小排序；否则返回最小的k个元素，按从小到大排序
+     * @return
+     */
+    public static int[] topK(IntStream stream, int k, boolean largest) {
+        return topK(stream.iterator(), k, largest);
+    }
+
+    /**
+     * 返回迭代器中剩余元素里最小(最大)的k个元素，元素不足k个时返回全部元素排好序的结果
+     *
+     * @param iterator
+     * @param k        需要的元素个数
+     * @param largest  为true时返回最大的k个元素，按从大到小排序；否则返回最小的k个元素，按从小到大排序
+     * @return
+     */
+    public static int[] topK(PrimitiveIterator.OfInt iterator, int k, boolean largest) {
+        checkK(k);
+        int flip = largest ? -1 : 0;
+        // 元素个数未知，堆从较小的容量开始按需扩容，k很大而元素很少时不会一次分配k个
+        int[] heap = new int[Math.min(k, 16)];
+        int size = 0;
+        while (size < k && iterator.hasNext()) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min(k, 2L * size));
+            }
+            heap[size++] = iterator.nextInt() ^ flip;
+        }
+        heapify(heap, size);
+        while (size > 0 && iterator.hasNext()) {
+            offer(heap, size, iterator.nextInt() ^ flip);
+        }
+        sortHeap(heap, size);
+        if (largest) {
+            for (int i = 0; i < size; i++) {
+                heap[i] = ~heap[i];
+            }
+        }
+        return size == heap.length ? heap : Arrays.copyOf(heap, size);
+    }
+
+    /**
+     * 部分排序，直接在原数组上操作：完成后[0, k)为数组中最小的k个元素并且已经从小到大排好序，[k, n)为其余的元素，顺序不确定；
+     * 不分配任何额外的空间，时间复杂度O(nlogk)
+     *
+     * @param arr
+     * @param k   需要排好序的元素个数，大于数组长度时对整个数组排序
+     */
+    public static void partialSort(int[] arr, int k) {
+        checkK(k);
+        int size = Math.min(k, arr.length);
+        // [0, k)就地建成大顶堆，后面的元素比堆顶小就和堆顶交换，被换出去的堆顶一定不在最小的k个之中
+        heapify(arr, size);
+        for (int i = size; i < arr.length; i++) {
+            if (arr[i] < arr[0]) {
+                int temp = arr[i];
+                arr[i] = arr[0];
+                arr[0] = temp;
+                siftDown(arr, 0, size);
+            }
+        }
+        sortHeap(arr, size);
+    }
+
+    private static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be >= 0: " + k);
+        }
+    }
+
+    /**
+     * 将heap的[0, size)建成大顶堆
+     */
+    private static void heapify(int[] heap, int size) {
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, size);
+        }
+    }
+
+    /**
+     * 新元素比堆顶小时替换掉堆顶，否则直接丢弃
+     */
+    private static void offer(int[] heap, int size, int val) {
+        if (size > 0 && val < heap[0]) {
+            heap[0] = val;
+            siftDown(heap, 0, size);
+        }
+    }
+
+    /**
+     * 对大顶堆[0, size)做堆排序，依次把堆顶(最大值)换到末尾，完成后从小到大有序
+     */
+    private static void sortHeap(int[] heap, int size) {
+        for (int end = size - 1; end > 0; end--) {
+            int temp = heap[0];
+            heap[0] = heap[end];
+            heap[end] = temp;
+            siftDown(heap, 0, end);
+        }
+    }
+
+    /**
+     * 将大顶堆中第i个节点下沉到合适的位置，节点i的子节点为2i+1和2i+2
+     */
+    private static void siftDown(int[] heap, int i, int size) {
+        int val = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child] < heap[child + 1]) {
+                child++;
+            }
+            if (val >= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = val;
+    }
+
+    public static long[] sort(long[] arr) {
+        // 拷贝数组，不改变原数组的值
+        long[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(long[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(long[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int i = from; i < to - 1; i++) {
+            int minIndex = i;
+            for (int j = i + 1; j < to; j++) {
+                if (dest[j] < dest[minIndex]) {
+                    minIndex = j;
+                }
+            }
+            if (minIndex != i) {
+                long temp = dest[i];
+                dest[i] = dest[minIndex];
+                dest[minIndex] = temp;
+            }
+        }
+    }
+
+    public static double[] sort(double[] arr) {
+        // 拷贝数组，不改变原数组的值
+        double[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(double[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，-0.0排在0.0前面，NaN排在最后，见{@link DoubleOrdering}
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(double[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        DoubleOrdering.sort(dest, from, to, SelectSort::selectionSort);
+    }
+
+    private static void selectionSort(double[] dest, int from, int to) {
+        for (int i = from; i < to - 1; i++) {
+            int minIndex = i;
+            for (int j = i + 1; j < to; j++) {
+                if (dest[j] < dest[minIndex]) {
+                    minIndex = j;
+                }
+            }
+            if (minIndex != i) {
+                double temp = dest[i];
+                dest[i] = dest[minIndex];
+                dest[minIndex] = temp;
+            }
+        }
+    }
+
+    public static short[] sort(short[] arr) {
+        // 拷贝数组，不改变原数组的值
+        short[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
         return dest;
     }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(short[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(short[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int i = from; i < to - 1; i++) {
+            int minIndex = i;
+            for (int j = i + 1; j < to; j++) {
+                if (dest[j] < dest[minIndex]) {
+                    minIndex = j;
+                }
+            }
+            if (minIndex != i) {
+                short temp = dest[i];
+                dest[i] = dest[minIndex];
+                dest[minIndex] = temp;
+            }
+        }
+    }
+
+    public static char[] sort(char[] arr) {
+        // 拷贝数组，不改变原数组的值
+        char[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(char[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(char[] dest, int from, int to) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int i = from; i < to - 1; i++) {
+            int minIndex = i;
+            for (int j = i + 1; j < to; j++) {
+                if (dest[j] < dest[minIndex]) {
+                    minIndex = j;
+                }
+            }
+            if (minIndex != i) {
+                char temp = dest[i];
+                dest[i] = dest[minIndex];
+                dest[minIndex] = temp;
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.ddf.datastructure.sort;
 
 import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * 希尔排序
@@ -10,11 +11,21 @@ import java.util.Arrays;
  * 它的核心思想是对一个未排序的数组进行对半切分，然后在切分的数组里进行跳序比较，所以也叫缩小增量排序
  * 它的最优时间复杂度为O(n)，最差则为O(n²),一般介于n的1.3到2平方之间
  *
+ * 每一轮使用的增量可以通过{@link GapSequence}指定，下面方法中的推演使用的是希尔原始的对半切分序列{@link StandardGapSequence#SHELL}，
+ * 不指定时默认使用{@link #DEFAULT_GAP_SEQUENCE}
+ *
+ * 除了int[]，还提供了long[]、double[]、short[]、char[]的版本，避免装箱；double[]的顺序与{@link Double#compare(double, double)}一致
+ *
  * @author dongfang.ding
  * @date 2019/6/27 15:20
  */
 public class ShellSort {
 
+    /**
+     * 默认的增量序列，取实测耗时最少的序列，见{@link StandardGapSequence}
+     */
+    public static final GapSequence DEFAULT_GAP_SEQUENCE = StandardGapSequence.SEDGEWICK;
+
     public static void main(String[] args) {
         int[] arr = {30, 15, 18, 17, 12, 15, 14, 13};
         int[] sort = swapSort(arr);
@@ -22,6 +33,8 @@ public class ShellSort {
         System.out.println("排序后： " + Arrays.toString(sort));
         sort = insertSort(arr);
         System.out.println("排序后： " + Arrays.toString(sort));
+        sort = insertSort(arr, StandardGapSequence.SHELL);
+        System.out.println("排序后： " + Arrays.toString(sort));
     }
 
 
@@ -97,24 +110,95 @@ public class ShellSort {
      * @date 2019/6/27 15:20
      */
     public static int[] swapSort(int[] arr) {
+        return swapSort(arr, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 交换法，使用指定的增量序列
+     *
+     * @param arr
+     * @param sequence 增量序列
+     * @return
+     */
+    public static int[] swapSort(int[] arr, GapSequence sequence) {
         // 拷贝数组，不改变原数组的值
         int[] dest = Arrays.copyOf(arr, arr.length);
+        swapSort(dest, 0, dest.length, sequence);
+        return dest;
+    }
+
+    /**
+     * 交换法对数组的[from, to)区间原地排序，不会产生任何额外的数组拷贝
+     *
+     * 注意每一轮gap内，不能只按照gap从前往后两两比较一遍，那样只相当于对每个分组做了一趟冒泡，gap=1时也只能保证做了两趟冒泡，
+     * 并不能保证最终有序(上面的推演数据恰好能排好)；所以这里每拿到一个元素，都要和它之前间隔gap的元素依次比较，逆序就交换，
+     * 直到不再逆序为止，相当于用交换代替移位的插入排序
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void swapSort(int[] dest, int from, int to) {
+        swapSort(dest, from, to, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 交换法对数组的[from, to)区间原地排序，使用指定的增量序列
+     *
+     * @param dest
+     * @param from     起始角标(包含)
+     * @param to       结束角标(不包含)
+     * @param sequence 增量序列
+     */
+    public static void swapSort(int[] dest, int from, int to, GapSequence sequence) {
+        Objects.checkFromToIndex(from, to, dest.length);
         int temp;
-        // 数组切分方式,每次对半切分
-        for (int gap = dest.length / 2; gap > 0; gap /= 2) {
-            // 从[0]开始按照下面循环规则两两替换，一直循环到从[gap]开始找
-            for (int i = 0; i <= gap; i ++) {
-                // 数组切分好之后，数组内按照gap跳着两两比较，发现逆序就交换
-                for (int j = i; j < dest.length - gap; j += gap) {
-                    if (dest[j] > dest[j + gap]) {
-                        temp = dest[j];
-                        dest[j] = dest[j + gap];
-                        dest[j + gap] = temp;
+        // 按照增量序列依次取出每一轮的gap
+        for (int gap = sequence.first(to - from); gap > 0; gap = sequence.next(gap)) {
+            // 从gap位置开始循环，分别和之前与它相对应gap位置的元素两两比较
+            for (int i = from + gap; i < to; i ++) {
+                // 数组切分好之后，数组内按照gap跳着往前两两比较，发现逆序就交换，不逆序说明前面的已经有序了
+                for (int j = i - gap; j >= from && dest[j] > dest[j + gap]; j -= gap) {
+                    temp = dest[j];
+                    dest[j] = dest[j + gap];
+                    dest[j + gap] = temp;
+                }
+            }
+        }
+    }
+
+    /**
+     * 交换法排序[from, to)区间，并把比较、交换次数和耗时报告给metrics，metrics为null时与不统计的方法完全一样
+     *
+     * @param dest
+     * @param from     起始角标(包含)
+     * @param to       结束角标(不包含)
+     * @param sequence 增量序列
+     * @param metrics  统计结果的接收者，可以为null
+     */
+    public static void swapSort(int[] dest, int from, int to, GapSequence sequence, SortMetrics metrics) {
+        if (metrics == null) {
+            swapSort(dest, from, to, sequence);
+            return;
+        }
+        Objects.checkFromToIndex(from, to, dest.length);
+        SortCounter counter = new SortCounter();
+        int temp;
+        for (int gap = sequence.first(to - from); gap > 0; gap = sequence.next(gap)) {
+            for (int i = from + gap; i < to; i ++) {
+                for (int j = i - gap; j >= from; j -= gap) {
+                    counter.comparisons ++;
+                    if (dest[j] <= dest[j + gap]) {
+                        break;
                     }
+                    temp = dest[j];
+                    dest[j] = dest[j + gap];
+                    dest[j + gap] = temp;
+                    counter.swaps ++;
                 }
             }
         }
-        return dest;
+        counter.report(metrics, "ShellSort.swapSort", to - from);
     }
 
 
@@ -242,16 +326,73 @@ public class ShellSort {
      * @return
      */
     public static int[] insertSort(int[] arr) {
+        return insertSort(arr, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 移位法，使用指定的增量序列
+     *
+     * @param arr
+     * @param sequence 增量序列
+     * @return
+     */
+    public static int[] insertSort(int[] arr, GapSequence sequence) {
         // 拷贝数组，不改变原数组的值
         int[] dest = Arrays.copyOf(arr, arr.length);
-        // 数组切分方式,每次对半切分
-        for (int gap = arr.length / 2; gap > 0; gap /= 2) {
+        insertSort(dest, 0, dest.length, sequence);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序(移位法)，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(int[] arr) {
+        insertSort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序(移位法)，区间外的元素不受影响，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(int[] arr, int from, int to) {
+        insertSort(arr, from, to);
+    }
+
+    /**
+     * 移位法对数组的[from, to)区间原地排序，逻辑与{@link #insertSort(int[])}完全一致，只是把角标的下界从0换成了from，
+     * 供并行排序等需要对数组分段排序的场景直接复用，不会产生额外的数组拷贝，使用默认的增量序列
+     *
+     * @param dest
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void insertSort(int[] dest, int from, int to) {
+        insertSort(dest, from, to, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 移位法对数组的[from, to)区间原地排序，使用指定的增量序列
+     *
+     * @param dest
+     * @param from     起始角标(包含)
+     * @param to       结束角标(不包含)
+     * @param sequence 增量序列
+     */
+    public static void insertSort(int[] dest, int from, int to, GapSequence sequence) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        // 按照增量序列依次取出每一轮的gap
+        for (int gap = sequence.first(to - from); gap > 0; gap = sequence.next(gap)) {
             // 从gap位置开始循环，分别和之前与它相对应gap位置的元素进行插入排序
-            for (int i = gap; i < dest.length; i ++) {
+            for (int i = from + gap; i < to; i ++) {
                 int insertVal = dest[i];
                 int j = i;
                 // 注意这里的比较是insertVal < dest[j - gap],因为是从后往前赋值的，所以前面的越大，越要往移动
-                while (j - gap >= 0 && insertVal < dest[j - gap]) {
+                while (j - gap >= from && insertVal < dest[j - gap]) {
                     dest[j] = dest[j - gap];
                     j -= gap;
                 }
@@ -260,6 +401,254 @@ public class ShellSort {
                 }
             }
         }
+    }
+
+    /**
+     * 移位法排序[from, to)区间，并把比较、移动次数和耗时报告给metrics，metrics为null时与不统计的方法完全一样
+     *
+     * @param dest
+     * @param from     起始角标(包含)
+     * @param to       结束角标(不包含)
+     * @param sequence 增量序列
+     * @param metrics  统计结果的接收者，可以为null
+     */
+    public static void insertSort(int[] dest, int from, int to, GapSequence sequence, SortMetrics metrics) {
+        if (metrics == null) {
+            insertSort(dest, from, to, sequence);
+            return;
+        }
+        Objects.checkFromToIndex(from, to, dest.length);
+        SortCounter counter = new SortCounter();
+        insertSort(dest, from, to, sequence, counter);
+        counter.report(metrics, "ShellSort.insertSort", to - from);
+    }
+
+    /**
+     * 带计数的移位法，调用方负责检查角标，{@link ParallelSort}的每个任务也用它排序自己的那一段
+     */
+    static void insertSort(int[] dest, int from, int to, GapSequence sequence, SortCounter counter) {
+        for (int gap = sequence.first(to - from); gap > 0; gap = sequence.next(gap)) {
+            for (int i = from + gap; i < to; i ++) {
+                int insertVal = dest[i];
+                int j = i;
+                while (j - gap >= from) {
+                    counter.comparisons ++;
+                    if (insertVal >= dest[j - gap]) {
+                        break;
+                    }
+                    dest[j] = dest[j - gap];
+                    counter.moves ++;
+                    j -= gap;
+                }
+                if (j != i) {
+                    dest[j] = insertVal;
+                    counter.moves ++;
+                }
+            }
+        }
+    }
+
+    public static long[] insertSort(long[] arr) {
+        // 拷贝数组，不改变原数组的值
+        long[] dest = Arrays.copyOf(arr, arr.length);
+        insertSort(dest, 0, dest.length, DEFAULT_GAP_SEQUENCE);
         return dest;
     }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(long[] arr) {
+        insertSort(arr, 0, arr.length, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，使用默认的增量序列
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(long[] arr, int from, int to) {
+        insertSort(arr, from, to, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 移位法排序[from, to)区间，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from     起始角标(包含)
+     * @param to       结束角标(不包含)
+     * @param sequence 增量序列
+     */
+    public static void insertSort(long[] dest, int from, int to, GapSequence sequence) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int gap = sequence.first(to - from); gap > 0; gap = sequence.next(gap)) {
+            for (int i = from + gap; i < to; i ++) {
+                long insertVal = dest[i];
+                int j = i;
+                while (j - gap >= from && insertVal < dest[j - gap]) {
+                    dest[j] = dest[j - gap];
+                    j -= gap;
+                }
+                dest[j] = insertVal;
+            }
+        }
+    }
+
+    public static double[] insertSort(double[] arr) {
+        // 拷贝数组，不改变原数组的值
+        double[] dest = Arrays.copyOf(arr, arr.length);
+        insertSort(dest, 0, dest.length, DEFAULT_GAP_SEQUENCE);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(double[] arr) {
+        insertSort(arr, 0, arr.length, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，使用默认的增量序列
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(double[] arr, int from, int to) {
+        insertSort(arr, from, to, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 移位法排序[from, to)区间，-0.0排在0.0前面，NaN排在最后，见{@link DoubleOrdering}
+     *
+     * @param dest
+     * @param from     起始角标(包含)
+     * @param to       结束角标(不包含)
+     * @param sequence 增量序列
+     */
+    public static void insertSort(double[] dest, int from, int to, GapSequence sequence) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        DoubleOrdering.sort(dest, from, to, (arr, lo, hi) -> shellSort(arr, lo, hi, sequence));
+    }
+
+    private static void shellSort(double[] dest, int from, int to, GapSequence sequence) {
+        for (int gap = sequence.first(to - from); gap > 0; gap = sequence.next(gap)) {
+            for (int i = from + gap; i < to; i ++) {
+                double insertVal = dest[i];
+                int j = i;
+                while (j - gap >= from && insertVal < dest[j - gap]) {
+                    dest[j] = dest[j - gap];
+                    j -= gap;
+                }
+                dest[j] = insertVal;
+            }
+        }
+    }
+
+    public static short[] insertSort(short[] arr) {
+        // 拷贝数组，不改变原数组的值
+        short[] dest = Arrays.copyOf(arr, arr.length);
+        insertSort(dest, 0, dest.length, DEFAULT_GAP_SEQUENCE);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(short[] arr) {
+        insertSort(arr, 0, arr.length, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，使用默认的增量序列
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(short[] arr, int from, int to) {
+        insertSort(arr, from, to, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 移位法排序[from, to)区间，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from     起始角标(包含)
+     * @param to       结束角标(不包含)
+     * @param sequence 增量序列
+     */
+    public static void insertSort(short[] dest, int from, int to, GapSequence sequence) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int gap = sequence.first(to - from); gap > 0; gap = sequence.next(gap)) {
+            for (int i = from + gap; i < to; i ++) {
+                short insertVal = dest[i];
+                int j = i;
+                while (j - gap >= from && insertVal < dest[j - gap]) {
+                    dest[j] = dest[j - gap];
+                    j -= gap;
+                }
+                dest[j] = insertVal;
+            }
+        }
+    }
+
+    public static char[] insertSort(char[] arr) {
+        // 拷贝数组，不改变原数组的值
+        char[] dest = Arrays.copyOf(arr, arr.length);
+        insertSort(dest, 0, dest.length, DEFAULT_GAP_SEQUENCE);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，不会产生任何额外的数组拷贝
+     *
+     * @param arr
+     */
+    public static void sortInPlace(char[] arr) {
+        insertSort(arr, 0, arr.length, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，使用默认的增量序列
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(char[] arr, int from, int to) {
+        insertSort(arr, from, to, DEFAULT_GAP_SEQUENCE);
+    }
+
+    /**
+     * 移位法排序[from, to)区间，逻辑与int[]完全一致
+     *
+     * @param dest
+     * @param from     起始角标(包含)
+     * @param to       结束角标(不包含)
+     * @param sequence 增量序列
+     */
+    public static void insertSort(char[] dest, int from, int to, GapSequence sequence) {
+        Objects.checkFromToIndex(from, to, dest.length);
+        for (int gap = sequence.first(to - from); gap > 0; gap = sequence.next(gap)) {
+            for (int i = from + gap; i < to; i ++) {
+                char insertVal = dest[i];
+                int j = i;
+                while (j - gap >= from && insertVal < dest[j - gap]) {
+                    dest[j] = dest[j - gap];
+                    j -= gap;
+                }
+                dest[j] = insertVal;
+            }
+        }
+    }
 }
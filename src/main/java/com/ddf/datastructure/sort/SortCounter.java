@@ -0,0 +1,31 @@
+package com.ddf.datastructure.sort;
+
+/**
+ * 一次排序调用的计数器，只在传入了{@link SortMetrics}的计数代码中使用，创建时开始计时
+ *
+ * @author dongfang.ding
+ * @date 2019/7/11 10:15
+ */
+final class SortCounter {
+
+    long comparisons;
+
+    long swaps;
+
+    long moves;
+
+    private final long start = System.nanoTime();
+
+    /**
+     * 累加另一个计数器的计数，并行排序时每个任务单独计数，完成后再汇总，避免线程之间争用
+     */
+    void add(SortCounter other) {
+        comparisons += other.comparisons;
+        swaps += other.swaps;
+        moves += other.moves;
+    }
+
+    void report(SortMetrics metrics, String algorithm, int length) {
+        metrics.onSorted(algorithm, length, comparisons, swaps, moves, System.nanoTime() - start);
+    }
+}
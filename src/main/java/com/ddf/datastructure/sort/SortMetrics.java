@@ -0,0 +1,34 @@
+package com.ddf.datastructure.sort;
+
+/**
+ * 排序统计的监听器
+ *
+ * 调优时需要知道每种算法在真实数据上到底做了多少次比较、交换和移动，包中的排序都提供了带SortMetrics参数的重载方法，
+ * 每次调用完成后回调一次，上报本次调用的计数和耗时
+ *
+ * 不传监听器(传null或者调用不带该参数的方法)时走的是原来的代码，没有任何计数的逻辑；传了监听器才会走单独的计数代码，
+ * 所以生产环境不需要统计时不会有额外的开销
+ *
+ * 计数的口径：
+ * 1. comparisons 两个元素之间的比较次数
+ * 2. swaps       两个元素互换位置的次数
+ * 3. moves       除交换以外，元素被写入数组的次数，比如插入排序的后移、归并时写入结果、基数排序的分配，一次arraycopy按照拷贝的元素个数计算
+ *
+ * @author dongfang.ding
+ * @date 2019/7/11 10:15
+ */
+@FunctionalInterface
+public interface SortMetrics {
+
+    /**
+     * 一次排序调用完成后回调
+     *
+     * @param algorithm    算法名称
+     * @param length       排序的元素个数
+     * @param comparisons  比较次数
+     * @param swaps        交换次数
+     * @param moves        移动次数
+     * @param elapsedNanos 耗时，单位纳秒
+     */
+    void onSorted(String algorithm, int length, long comparisons, long swaps, long moves, long elapsedNanos);
+}
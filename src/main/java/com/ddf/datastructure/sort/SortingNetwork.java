@@ -0,0 +1,156 @@
+package com.ddf.datastructure.sort;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * 排序网络，用于排序长度不超过{@link #MAX_BLOCK}的小区间
+ *
+ * 插入排序在小数组上很快，但每个元素都要和前面的元素比较，随机数据上这些比较的结果无法预测，分支预测失败的代价比比较本身还大；
+ * 排序网络每一步要比较哪两个位置是事先固定好的，与数据无关，比较交换只需要取min、max，没有分支，而且同一步中的比较互不影响，
+ * 可以用SIMD指令一次完成多对，见{@link VectorSortingNetwork}
+ *
+ * 双调排序网络只能处理2的幂个元素，区间长度不是2的幂时需要补齐：
+ * 1. 单独排序一个区间时，先拷贝到辅助数组中，末尾用{@link Integer#MAX_VALUE}补齐，排完序后补上的元素都在最后，只把前面的部分拷贝回去，
+ *      辅助数组只在需要补齐时才分配；
+ * 2. {@link IntroSort}切分出来的小区间，左边的元素都不大于它，右边的元素都不小于它，直接把排序的窗口扩大到2的幂个元素，
+ *      用两边原有的元素代替补齐的元素，排完序后小区间的元素仍然在原来的位置上，不需要辅助数组，见{@link #sortWithin}
+ *
+ * SIMD实现基于jdk.incubator.vector模块，需要在编译和运行时都加上--add-modules jdk.incubator.vector，
+ * 并且CPU支持256位的整数向量运算(AVX2)；运行时检测到不满足条件时自动退回到{@link InsertSort#sort(int[], int, int)}，
+ * 结果完全一样，也不需要调用方做任何处理，可以通过{@link #isVectorized()}查看当前使用的是哪一种
+ *
+ * @author dongfang.ding
+ * @date 2019/7/12 10:20
+ */
+public final class SortingNetwork {
+
+    /**
+     * 排序网络能处理的最大区间长度
+     */
+    public static final int MAX_BLOCK = 64;
+
+    /**
+     * 区间长度小于该值时元素太少，补齐到一个向量的开销比插入排序本身还大，直接插入排序
+     */
+    private static final int MIN_BLOCK = 8;
+
+    private static final boolean VECTORIZED = vectorSupported();
+
+    private SortingNetwork() {
+    }
+
+    public static void main(String[] args) {
+        int[] arr = {30, 15, 18, 17, 12, 15, 14, 13, 25, 11, 19};
+        int[] sort = Arrays.copyOf(arr, arr.length);
+        sort(sort, 0, sort.length);
+        System.out.println("是否使用SIMD： " + isVectorized());
+        System.out.println("排序前： " + Arrays.toString(arr));
+        System.out.println("排序后： " + Arrays.toString(sort));
+
+        Random random = new Random();
+        int[] data = new int[1 << 24];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextInt();
+        }
+        for (int round = 0; round < 5; round++) {
+            int[] copy = Arrays.copyOf(data, data.length);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < copy.length; i += 32) {
+                InsertSort.sort(copy, i, i + 32);
+            }
+            long insert = System.currentTimeMillis() - start;
+            copy = Arrays.copyOf(data, data.length);
+            int[] scratch = new int[MAX_BLOCK];
+            start = System.currentTimeMillis();
+            for (int i = 0; i < copy.length; i += 32) {
+                sort(copy, i, i + 32, scratch);
+            }
+            System.out.println("每32个一组，插入排序耗时： " + insert + "ms，排序网络耗时： " + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    /**
+     * 当前是否使用SIMD实现
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，区间长度不能超过{@link #MAX_BLOCK}；
+     * 使用SIMD并且区间长度不是2的幂时，每次调用会分配一个补齐长度的辅助数组
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     */
+    public static void sort(int[] arr, int from, int to) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        if (to - from > MAX_BLOCK) {
+            throw new IllegalArgumentException("区间长度超过" + MAX_BLOCK + ": " + (to - from));
+        }
+        sort(arr, from, to, null);
+    }
+
+    /**
+     * 调用方负责检查角标和区间长度；scratch为补齐用的辅助数组，长度至少为{@link #MAX_BLOCK}，为null时在需要补齐时才分配
+     */
+    static void sort(int[] arr, int lo, int hi, int[] scratch) {
+        int n = hi - lo;
+        if (!VECTORIZED || n < MIN_BLOCK) {
+            InsertSort.sort(arr, lo, hi);
+            return;
+        }
+        int size = Math.max(VectorSortingNetwork.LANES, Integer.highestOneBit(n - 1) << 1);
+        if (size == n) {
+            VectorSortingNetwork.sort(arr, lo, size);
+            return;
+        }
+        if (scratch == null) {
+            scratch = new int[size];
+        }
+        System.arraycopy(arr, lo, scratch, 0, n);
+        Arrays.fill(scratch, n, size, Integer.MAX_VALUE);
+        VectorSortingNetwork.sort(scratch, 0, size);
+        System.arraycopy(scratch, 0, arr, lo, n);
+    }
+
+    /**
+     * 对[lo, hi)排序，要求[from, lo)中的元素都不大于[lo, hi)中的元素，[hi, to)中的元素都不小于[lo, hi)中的元素，
+     * 快速排序切分出来的区间都满足这个条件；调用方负责检查角标和区间长度
+     *
+     * 不需要补齐：在[from, to)中取一个包含[lo, hi)的2的幂长度的窗口整体排序，窗口中[lo, hi)以外的元素都在它的一侧，
+     * 排完序后[lo, hi)中仍然是原来的元素；窗口中其它区间的元素也只在各自的区间内重新排列，已经排好序的区间排完后不变。
+     * [from, to)比窗口还短时(整个待排序的区间都不足一个窗口)直接插入排序
+     */
+    static void sortWithin(int[] arr, int lo, int hi, int from, int to) {
+        int n = hi - lo;
+        if (!VECTORIZED || n < MIN_BLOCK) {
+            InsertSort.sort(arr, lo, hi);
+            return;
+        }
+        int size = Math.max(VectorSortingNetwork.LANES, Integer.highestOneBit(n - 1) << 1);
+        if (size > to - from) {
+            InsertSort.sort(arr, lo, hi);
+            return;
+        }
+        // 优先向右扩展，右边不够时窗口贴着to
+        VectorSortingNetwork.sort(arr, Math.min(lo, to - size), size);
+    }
+
+    /**
+     * jdk.incubator.vector模块没有加载时不能碰{@link VectorSortingNetwork}，否则会抛出NoClassDefFoundError
+     */
+    private static boolean vectorSupported() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorSortingNetwork.isSupported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.ddf.datastructure.sort;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * 排序的统一入口，先对数据抽样，根据数据的特征自动选择排序算法
+ *
+ * 包中的每种排序都有自己擅长和不擅长的数据，调用方并不一定清楚数据是什么样的，选错了代价可能很大，
+ * 比如基本有序的数据用基数排序，比自适应的归并慢几十倍；这里先花O(1)的代价抽样，再决定用哪一种：
+ *
+ * 1. 规模：元素很少时任何算法的差别都不大，插入排序的常数最小，直接插入排序；
+ * 2. 有序程度：均匀地抽取{@link #SAMPLE_SIZE}对相邻元素，统计其中升序(允许相等)和降序的比例，
+ *      超过{@link #PRESORTED_RATIO}说明数据基本有序(或基本逆序)，交给{@link InsertSort#adaptiveSort(int[], int, int)}，
+ *      实测100万个元素中有序相邻对的比例在96%左右时，它和基数排序耗时相当，比例越高它的优势越大；
+ * 3. 值域：抽样的元素中最大值与最小值之差如果不超过元素个数的两倍，再完整扫描一遍求出真实的值域，值域确实很小时用计数排序，
+ *      O(n + k)而且不需要比较；抽样的值域已经很大时真实的值域只会更大，就不用再扫描了；
+ * 4. 其它情况：元素较多时用基数排序，元素较少时基数排序统计直方图的开销占比太大，用内省排序(快速排序 + 堆排序兜底的混合排序)
+ *
+ * 抽样中不同值的比例(对抽到的元素排序后去重)也会记录在决策中，大量重复的数据值域往往也小，会在第3步被计数排序接住
+ *
+ * 每次选择的结果都可以通过{@link #sort(int[], int, int)}的返回值或者{@link #choose(int[], int, int)}拿到，方便记录日志，
+ * 排查某次排序为什么慢
+ *
+ * @author dongfang.ding
+ * @date 2019/7/17 10:30
+ */
+public final class Sorts {
+
+    /**
+     * 可能选择的排序算法
+     */
+    public enum Algorithm {
+
+        /**
+         * {@link InsertSort#sort(int[], int, int)}
+         */
+        INSERTION,
+
+        /**
+         * {@link InsertSort#adaptiveSort(int[], int, int)}
+         */
+        ADAPTIVE,
+
+        /**
+         * {@link CountingSort#sort(int[], int, int)}
+         */
+        COUNTING,
+
+        /**
+         * {@link RadixSort#sort(int[], int, int)}
+         */
+        RADIX,
+
+        /**
+         * {@link IntroSort#sort(int[], int, int)}
+         */
+        INTRO
+    }
+
+    /**
+     * 一次选择的结果以及做出选择所依据的抽样数据
+     */
+    public static final class Decision {
+
+        private final Algorithm algorithm;
+
+        private final int size;
+
+        private final double ascendingRatio;
+
+        private final double descendingRatio;
+
+        private final double distinctRatio;
+
+        private final long range;
+
+        /**
+         * 计数排序时使用的最小值，只有algorithm为COUNTING时才有意义
+         */
+        private final int min;
+
+        Decision(Algorithm algorithm, int size, double ascendingRatio, double descendingRatio, double distinctRatio,
+                 long range, int min) {
+            this.algorithm = algorithm;
+            this.size = size;
+            this.ascendingRatio = ascendingRatio;
+            this.descendingRatio = descendingRatio;
+            this.distinctRatio = distinctRatio;
+            this.range = range;
+            this.min = min;
+        }
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * 抽样的相邻元素中升序(允许相等)的比例
+         */
+        public double getAscendingRatio() {
+            return ascendingRatio;
+        }
+
+        /**
+         * 抽样的相邻元素中降序(允许相等)的比例
+         */
+        public double getDescendingRatio() {
+            return descendingRatio;
+        }
+
+        /**
+         * 抽样的元素中不同值的比例，越小说明重复越多
+         */
+        public double getDistinctRatio() {
+            return distinctRatio;
+        }
+
+        /**
+         * 最大值与最小值之差；完整扫描过时是真实的值域，否则是抽样的值域，真实值域只会比它大
+         */
+        public long getRange() {
+            return range;
+        }
+
+        @Override
+        public String toString() {
+            return "Decision{algorithm=" + algorithm + ", size=" + size
+                    + String.format(", ascending=%.3f, descending=%.3f, distinct=%.3f", ascendingRatio, descendingRatio, distinctRatio)
+                    + ", range=" + range + "}";
+        }
+    }
+
+    /**
+     * 不超过该值时直接插入排序
+     */
+    private static final int INSERTION_THRESHOLD = 32;
+
+    /**
+     * 超过该值时优先使用基数排序，实测随机数据在1000个元素左右时基数排序开始比内省排序快
+     */
+    private static final int RADIX_THRESHOLD = 1 << 10;
+
+    /**
+     * 抽样的相邻元素对的个数
+     */
+    private static final int SAMPLE_SIZE = 256;
+
+    /**
+     * 抽样的相邻元素对中有序的比例达到该值时，认为数据基本有序
+     */
+    private static final double PRESORTED_RATIO = 0.98;
+
+    private Sorts() {
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random();
+        int size = 1_000_000;
+        int[] randomData = new int[size];
+        int[] ages = new int[size];
+        int[] appended = new int[size];
+        for (int i = 0; i < size; i++) {
+            randomData[i] = random.nextInt();
+            ages[i] = random.nextInt(120);
+            appended[i] = random.nextInt(100) < 1 ? random.nextInt(size) : i;
+        }
+        int[][] inputs = {{3, 1, 2}, randomData, ages, appended};
+        for (int[] input : inputs) {
+            int[] dest = Arrays.copyOf(input, input.length);
+            long start = System.currentTimeMillis();
+            Decision decision = sort(dest, 0, dest.length);
+            System.out.println(decision + " 耗时： " + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    public static int[] sort(int[] arr) {
+        // 拷贝数组，不改变原数组的值
+        int[] dest = Arrays.copyOf(arr, arr.length);
+        sort(dest, 0, dest.length);
+        return dest;
+    }
+
+    /**
+     * 直接在原数组上排序，是否需要辅助数组取决于选中的算法
+     *
+     * @param arr
+     */
+    public static void sortInPlace(int[] arr) {
+        sort(arr, 0, arr.length);
+    }
+
+    /**
+     * 对原数组的[from, to)区间排序，返回本次选择的结果
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     * @return 选择的算法以及抽样得到的数据特征
+     */
+    public static Decision sort(int[] arr, int from, int to) {
+        Decision decision = choose(arr, from, to);
+        switch (decision.algorithm) {
+            case INSERTION:
+                InsertSort.sort(arr, from, to);
+                break;
+            case ADAPTIVE:
+                InsertSort.adaptiveSort(arr, from, to);
+                break;
+            case COUNTING:
+                CountingSort.sort(arr, from, to, decision.min, (int) (decision.min + decision.range));
+                break;
+            case RADIX:
+                RadixSort.sort(arr, from, to);
+                break;
+            default:
+                IntroSort.sort(arr, from, to);
+                break;
+        }
+        return decision;
+    }
+
+    /**
+     * 只做选择不排序，返回对[from, to)区间会选择的算法以及抽样得到的数据特征
+     *
+     * @param arr
+     * @param from 起始角标(包含)
+     * @param to   结束角标(不包含)
+     * @return
+     */
+    public static Decision choose(int[] arr, int from, int to) {
+        Objects.checkFromToIndex(from, to, arr.length);
+        int size = to - from;
+        if (size <= INSERTION_THRESHOLD) {
+            return new Decision(Algorithm.INSERTION, size, Double.NaN, Double.NaN, Double.NaN, -1, 0);
+        }
+        // 均匀地取SAMPLE_SIZE对相邻元素，元素不够时就取全部的相邻元素
+        int pairs = Math.min(SAMPLE_SIZE, size - 1);
+        long step = (long) (size - 1) / pairs;
+        int[] sample = new int[pairs];
+        int ascending = 0;
+        int descending = 0;
+        int sampleMin = Integer.MAX_VALUE;
+        int sampleMax = Integer.MIN_VALUE;
+        for (int i = 0; i < pairs; i++) {
+            int p = from + (int) (i * step);
+            int a = arr[p];
+            int b = arr[p + 1];
+            if (a <= b) {
+                ascending++;
+            }
+            if (a >= b) {
+                descending++;
+            }
+            sample[i] = a;
+            sampleMin = Math.min(sampleMin, a);
+            sampleMax = Math.max(sampleMax, a);
+        }
+        double ascendingRatio = (double) ascending / pairs;
+        double descendingRatio = (double) descending / pairs;
+        InsertSort.sort(sample, 0, pairs);
+        int distinct = 1;
+        for (int i = 1; i < pairs; i++) {
+            if (sample[i] != sample[i - 1]) {
+                distinct++;
+            }
+        }
+        double distinctRatio = (double) distinct / pairs;
+
+        if (ascendingRatio >= PRESORTED_RATIO || descendingRatio >= PRESORTED_RATIO) {
+            return new Decision(Algorithm.ADAPTIVE, size, ascendingRatio, descendingRatio, distinctRatio,
+                    (long) sampleMax - sampleMin, sampleMin);
+        }
+        long countingLimit = Math.min(CountingSort.MAX_RANGE - 1, 2L * size);
+        long range = (long) sampleMax - sampleMin;
+        if (range <= countingLimit) {
+            // 抽样的值域不大，完整扫描一遍求出真实的值域，扫描到超过上限就可以停下来了
+            int min = sampleMin;
+            int max = sampleMax;
+            for (int i = from; i < to && (long) max - min <= countingLimit; i++) {
+                int val = arr[i];
+                if (val < min) {
+                    min = val;
+                } else if (val > max) {
+                    max = val;
+                }
+            }
+            range = (long) max - min;
+            if (range <= countingLimit) {
+                return new Decision(Algorithm.COUNTING, size, ascendingRatio, descendingRatio, distinctRatio, range, min);
+            }
+        }
+        Algorithm algorithm = size > RADIX_THRESHOLD ? Algorithm.RADIX : Algorithm.INTRO;
+        return new Decision(algorithm, size, ascendingRatio, descendingRatio, distinctRatio, range, sampleMin);
+    }
+}
@@ -0,0 +1,134 @@
+package com.ddf.datastructure.sort;
+
+import java.util.Arrays;
+
+/**
+ * 内置的希尔排序增量序列
+ *
+ * 除了希尔原始的对半切分序列与数组长度有关之外，其余的序列都是固定的，所以在类加载的时候就把int范围内的所有增量按照从小到大的顺序
+ * 计算好放到表里，排序时从比数组长度小的最大的增量开始，依次往前取，一直取到1；
+ *
+ * 1. SHELL     希尔原始序列 n/2, n/4, ..., 1，最差O(n²)
+ * 2. KNUTH     (3^k - 1) / 2，即1, 4, 13, 40, 121...，最差O(n^(3/2))
+ * 3. SEDGEWICK 4^k + 3 * 2^(k-1) + 1，前面补1，即1, 8, 23, 77, 281...，最差O(n^(4/3))
+ * 4. TOKUDA    h(k) = 2.25 * h(k-1) + 1向上取整，即1, 4, 9, 20, 46, 103...
+ * 5. CIURA     实验得出的1, 4, 10, 23, 57, 132, 301, 701, 1750，之后按照2.25倍扩展，比较次数最少
+ * 6. PRATT     所有2^p * 3^q，最差O(n(logn)²)，但是轮数太多，实际反而最慢
+ *
+ * 1万到100万的随机int数组上实测，SEDGEWICK的耗时最少(轮数少，每一轮对缓存更友好)，所以作为{@link ShellSort}的默认序列；
+ * CIURA和TOKUDA的比较次数更少，但耗时基本和KNUTH持平
+ *
+ * @author dongfang.ding
+ * @date 2019/7/3 14:26
+ */
+public enum StandardGapSequence implements GapSequence {
+
+    /**
+     * 希尔原始序列，每次对半切分
+     */
+    SHELL(null) {
+        @Override
+        public int first(int length) {
+            return length / 2;
+        }
+
+        @Override
+        public int next(int gap) {
+            return gap / 2;
+        }
+    },
+
+    KNUTH(knuth()),
+
+    SEDGEWICK(sedgewick()),
+
+    TOKUDA(tokuda()),
+
+    CIURA(ciura()),
+
+    PRATT(pratt());
+
+    /**
+     * 从小到大排列的所有增量，第一个是1
+     */
+    private final int[] gaps;
+
+    StandardGapSequence(int[] gaps) {
+        this.gaps = gaps;
+    }
+
+    /**
+     * 第一个增量就是表中比数组长度小的最大的那个增量
+     */
+    @Override
+    public int first(int length) {
+        return next(length);
+    }
+
+    /**
+     * 在表中二分查找比当前增量小的最大的那个增量
+     */
+    @Override
+    public int next(int gap) {
+        int i = Arrays.binarySearch(gaps, gap);
+        // 找到了就取前一个，找不到时binarySearch返回的是-(插入位置)-1，插入位置的前一个就是比它小的最大的那个
+        i = i >= 0 ? i - 1 : -i - 2;
+        return i >= 0 ? gaps[i] : 0;
+    }
+
+    private static int[] knuth() {
+        int[] gaps = new int[32];
+        int size = 0;
+        for (long h = 1; h <= Integer.MAX_VALUE; h = 3 * h + 1) {
+            gaps[size++] = (int) h;
+        }
+        return Arrays.copyOf(gaps, size);
+    }
+
+    private static int[] sedgewick() {
+        int[] gaps = new int[32];
+        int size = 0;
+        gaps[size++] = 1;
+        for (int k = 1; ; k++) {
+            long h = (1L << (2 * k)) + 3L * (1L << (k - 1)) + 1;
+            if (h > Integer.MAX_VALUE) {
+                break;
+            }
+            gaps[size++] = (int) h;
+        }
+        return Arrays.copyOf(gaps, size);
+    }
+
+    private static int[] tokuda() {
+        int[] gaps = new int[32];
+        int size = 0;
+        for (double h = 1; Math.ceil(h) <= Integer.MAX_VALUE; h = 2.25 * h + 1) {
+            gaps[size++] = (int) Math.ceil(h);
+        }
+        return Arrays.copyOf(gaps, size);
+    }
+
+    private static int[] ciura() {
+        int[] known = {1, 4, 10, 23, 57, 132, 301, 701, 1750};
+        int[] gaps = Arrays.copyOf(known, 32);
+        int size = known.length;
+        for (long h = (long) (1750 * 2.25); h <= Integer.MAX_VALUE; h = (long) (h * 2.25)) {
+            gaps[size++] = (int) h;
+        }
+        return Arrays.copyOf(gaps, size);
+    }
+
+    private static int[] pratt() {
+        // 2^p不超过31个，每个再乘以3^q不超过20个，不会超过这个大小
+        int[] gaps = new int[31 * 20];
+        int size = 0;
+        for (long p = 1; p <= Integer.MAX_VALUE; p *= 2) {
+            for (long h = p; h <= Integer.MAX_VALUE; h *= 3) {
+                gaps[size++] = (int) h;
+            }
+        }
+        gaps = Arrays.copyOf(gaps, size);
+        Arrays.sort(gaps);
+        return gaps;
+    }
+}
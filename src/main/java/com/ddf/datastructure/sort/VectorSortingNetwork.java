@@ -0,0 +1,132 @@
+package com.ddf.datastructure.sort;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于Vector API的双调排序网络，只能通过{@link SortingNetwork}访问
+ *
+ * 这个类引用了jdk.incubator.vector模块中的类，模块没有加载时只要不加载这个类就不会出错，所以{@link SortingNetwork}
+ * 确认模块存在之后才会用到它
+ *
+ * 双调排序网络中第k轮第j步，角标i与角标i^j的元素比较交换，(i & k) == 0的一组升序，否则降序，每一步的比较对象都是固定的，与数据无关：
+ * 1. j不小于向量的通道数时，参与比较的两个元素在两个不同的向量中，整个向量直接取min、max，一次完成LANES对元素的比较交换，
+ *      此时k也一定不小于通道数，同一个向量中的元素升降序相同；
+ * 2. j小于通道数时，比较的两个元素在同一个向量中，先用shuffle把每个通道换成它的比较对象(i^j)，再取min、max，
+ *      最后按照掩码决定每个通道留下min还是max，掩码只与j、k以及通道的位置有关，提前计算好；同一个k的这些步骤都在寄存器中完成，
+ *      每个向量只读写一次数组
+ *
+ * 整个过程没有任何与数据有关的分支，不存在分支预测失败
+ *
+ * @author dongfang.ding
+ * @date 2019/7/12 10:20
+ */
+final class VectorSortingNetwork {
+
+    /**
+     * 固定使用256位的向量(8个int)，这样8个元素的块也能直接排序，AVX-512的机器上也不会因为512位指令降频
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_256;
+
+    static final int LANES = SPECIES.length();
+
+    private static final int LOG_LANES = Integer.numberOfTrailingZeros(LANES);
+
+    /**
+     * SHUFFLES[log2(j)]：每个通道换成第i^j个通道的元素
+     */
+    private static final VectorShuffle<Integer>[] SHUFFLES;
+
+    /**
+     * MIN_MASKS[log2(k)][log2(j)]：k小于通道数时，第k轮第j步中需要留下较小值的通道；
+     * k不小于通道数时，同一个向量中的元素升降序相同，升序用MIN_MASKS[LOG_LANES][log2(j)]，降序用MAX_MASKS中对应的掩码
+     */
+    private static final VectorMask<Integer>[][] MIN_MASKS;
+
+    private static final VectorMask<Integer>[][] MAX_MASKS;
+
+    static {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        VectorShuffle<Integer>[] shuffles = new VectorShuffle[LOG_LANES];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        VectorMask<Integer>[][] minMasks = new VectorMask[LOG_LANES + 1][LOG_LANES];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        VectorMask<Integer>[][] maxMasks = new VectorMask[LOG_LANES + 1][LOG_LANES];
+        for (int logJ = 0; logJ < LOG_LANES; logJ++) {
+            int j = 1 << logJ;
+            shuffles[logJ] = VectorShuffle.fromOp(SPECIES, i -> i ^ j);
+            for (int logK = logJ + 1; logK <= LOG_LANES; logK++) {
+                int k = 1 << logK;
+                boolean[] bits = new boolean[LANES];
+                for (int i = 0; i < LANES; i++) {
+                    // 升序的一组中，一对元素里角标小的留下较小值；降序则相反
+                    bits[i] = ((i & j) == 0) == ((i & k) == 0);
+                }
+                minMasks[logK][logJ] = VectorMask.fromArray(SPECIES, bits, 0);
+                maxMasks[logK][logJ] = minMasks[logK][logJ].not();
+            }
+        }
+        SHUFFLES = shuffles;
+        MIN_MASKS = minMasks;
+        MAX_MASKS = maxMasks;
+    }
+
+    private VectorSortingNetwork() {
+    }
+
+    /**
+     * 当前平台是否真的支持256位的整数向量运算，不支持时Vector API会退化为纯Java实现，比标量的插入排序还要慢很多
+     */
+    static boolean isSupported() {
+        return IntVector.SPECIES_PREFERRED.vectorBitSize() >= SPECIES.vectorBitSize();
+    }
+
+    /**
+     * 对arr中从offset开始的size个元素排序，size必须是2的幂并且不小于{@link #LANES}
+     */
+    static void sort(int[] arr, int offset, int size) {
+        int end = offset + size;
+        for (int logK = 1; (1 << logK) <= size; logK++) {
+            int k = 1 << logK;
+            // 跨向量的步骤：两个向量整体比较交换
+            for (int j = k >>> 1; j >= LANES; j >>>= 1) {
+                for (int base = offset; base < end; base += LANES) {
+                    if (((base - offset) & j) != 0) {
+                        // 这一段是前面某个向量的比较对象，已经处理过了，直接跳过这一整段
+                        base += j - LANES;
+                        continue;
+                    }
+                    IntVector a = IntVector.fromArray(SPECIES, arr, base);
+                    IntVector b = IntVector.fromArray(SPECIES, arr, base + j);
+                    IntVector min = a.min(b);
+                    IntVector max = a.max(b);
+                    if (((base - offset) & k) == 0) {
+                        min.intoArray(arr, base);
+                        max.intoArray(arr, base + j);
+                    } else {
+                        max.intoArray(arr, base);
+                        min.intoArray(arr, base + j);
+                    }
+                }
+            }
+            // 向量内的步骤：每个向量读取一次，本轮剩下的步骤都在寄存器中完成
+            int firstLogJ = Math.min(logK, LOG_LANES) - 1;
+            for (int base = offset; base < end; base += LANES) {
+                IntVector v = IntVector.fromArray(SPECIES, arr, base);
+                VectorMask<Integer>[] masks;
+                if (logK < LOG_LANES) {
+                    masks = MIN_MASKS[logK];
+                } else {
+                    masks = ((base - offset) & k) == 0 ? MIN_MASKS[LOG_LANES] : MAX_MASKS[LOG_LANES];
+                }
+                for (int logJ = firstLogJ; logJ >= 0; logJ--) {
+                    IntVector partner = v.rearrange(SHUFFLES[logJ]);
+                    v = v.max(partner).blend(v.min(partner), masks[logJ]);
+                }
+                v.intoArray(arr, base);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ddf.datastructure.stack;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EmptyStackException;
 import java.util.List;
 
@@ -26,13 +27,29 @@ public class ArrayStackDemo {
         System.out.println("弹出元素： [" + stack.pop() + "]");
         System.out.println("弹出元素： [" + stack.pop() + "]");
         System.out.println("弹出元素： [" + stack.pop() + "]");
+
+        ArrayStack<Integer> growable = new ArrayStack<>(2, true);
+        for (int i = 0; i < 100; i++) {
+            growable.push(i);
+        }
+        System.out.println("可扩容的栈压入100个元素后容量: " + growable.capacity() + "，栈顶元素: " + growable.peek());
+        while (growable.size() > 10) {
+            growable.pop();
+        }
+        System.out.println("弹出到剩余10个元素后容量: " + growable.capacity());
     }
 
 }
 
 
 /**
- * 通过数组来实现一个简单的栈, 数组需要指定大小，不提供扩容功能，非线程安全；
+ * 通过数组来实现一个简单的栈，非线程安全；
+ *
+ * 默认需要指定大小，满了之后再压入抛出异常；也可以构造为可扩容的栈：
+ *
+ * 1. 满了之后按两倍扩容，扩容时拷贝的总次数与压入的次数成正比，均摊到每次push还是O(1)；
+ * 2. 弹出后元素个数不超过容量的1/4时缩容为一半，但不小于初始容量；缩容的阈值比扩容后的占用率(1/2)低，
+ *      在临界点附近交替push、pop不会反复扩容缩容
  *
  * java自己实现的栈是继承线程安全的集合类Vector，所以是线程安全的；这里自己写的只是简单说明栈的构成
  *
@@ -42,6 +59,11 @@ public class ArrayStackDemo {
  */
 class ArrayStack<E> {
 
+    /**
+     * 数组的最大长度，与ArrayList一样留出部分虚拟机保留的空间
+     */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
     /**
      * 栈中元素个数
      */
@@ -49,13 +71,36 @@ class ArrayStack<E> {
 
     private Object[] items;
 
+    /**
+     * 是否可以扩容
+     */
+    private final boolean growable;
+
+    /**
+     * 初始容量，缩容时不会小于这个值
+     */
+    private final int initialCapacity;
+
     /**
      * 需要指定大小来构造栈，不提供扩容功能
      *
      * @param capacity
      */
     ArrayStack(int capacity) {
-        items = new Object[capacity];
+        this(capacity, false);
+    }
+
+    /**
+     * @param capacity 初始容量
+     * @param growable 是否可以扩容，为true时满了按两倍扩容，元素个数降到容量的1/4时缩容为一半
+     */
+    ArrayStack(int capacity, boolean growable) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.items = new Object[capacity];
+        this.growable = growable;
+        this.initialCapacity = capacity;
     }
 
     /**
@@ -65,7 +110,10 @@ class ArrayStack<E> {
      */
     public boolean push(E e) {
         if (size == items.length) {
-            throw new IllegalStateException("Stack full");
+            if (!growable) {
+                throw new IllegalStateException("Stack full");
+            }
+            grow();
         }
         items[size] = e;
         size ++;
@@ -87,6 +135,9 @@ class ArrayStack<E> {
         items[size - 1] = null;
         // 个数 - 1
         size --;
+        if (growable && size <= items.length >>> 2 && items.length > initialCapacity) {
+            shrink();
+        }
         return e;
     }
 
@@ -99,15 +150,17 @@ class ArrayStack<E> {
             throw new EmptyStackException();
         }
         @SuppressWarnings("unchecked")
-        E e = (E) items[items.length - 1];
+        E e = (E) items[size - 1];
         return e;
     }
 
     @Override
     public String toString() {
         List<E> list = new ArrayList<>();
-        for (Object item : items) {
-            list.add((E) item);
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            E e = (E) items[i];
+            list.add(e);
         }
         return list.toString();
     }
@@ -127,5 +180,32 @@ class ArrayStack<E> {
     public int size() {
         return size;
     }
-}
 
+    /**
+     * 当前数组的长度
+     * @return
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    /**
+     * 按两倍扩容，超过最大长度时取最大长度
+     */
+    private void grow() {
+        int oldCapacity = items.length;
+        if (oldCapacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Stack full");
+        }
+        int newCapacity = (int) Math.min((long) oldCapacity << 1, MAX_CAPACITY);
+        items = Arrays.copyOf(items, newCapacity);
+    }
+
+    /**
+     * 缩容为一半，不小于初始容量
+     */
+    private void shrink() {
+        int newCapacity = Math.max(items.length >>> 1, initialCapacity);
+        items = Arrays.copyOf(items, newCapacity);
+    }
+}
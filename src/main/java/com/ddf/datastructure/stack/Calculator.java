@@ -2,7 +2,6 @@ package com.ddf.datastructure.stack;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * 基于栈实现一个简单的计算器
@@ -60,32 +59,34 @@ public class Calculator {
 
     /**
      * 使用栈来完成基于后缀表达式的简单计算器（加减乘除）
+     *
+     * 操作数栈使用{@link LongArrayStack}，不会像{@link java.util.Stack}一样每次存取都加锁、每个操作数都装箱成Long
      */
     public static long suffixExpression(String expression) {
-        Stack<Long> element = new Stack<>();
+        LongArrayStack element = new LongArrayStack();
         // 简单点来，假设已经是后缀表达式，而且有空格
         List<String> list = Arrays.asList(expression.split(" "));
         if (!list.isEmpty()) {
             for (String str : list) {
                 // 如果是数字就压入栈
                 if (str.matches("\\d+")) {
-                    element.add(Long.parseLong(str));
+                    element.push(Long.parseLong(str));
                 } else {
                     // 如果是运算符就弹出两个元素然后根据运算符进行计算，计算完成后将结果压入栈
-                    Long num1 = element.pop();
-                    Long num2 = element.pop();
+                    long num1 = element.pop();
+                    long num2 = element.pop();
                     switch (str) {
                         case "+":
-                            element.add(num2 + num1);
+                            element.push(num2 + num1);
                             break;
                         case "-":
-                            element.add(num2 - num1);
+                            element.push(num2 - num1);
                             break;
                         case "*":
-                            element.add(num2 * num1);
+                            element.push(num2 * num1);
                             break;
                         case "/":
-                            element.add(num2 / num1 + num2 % num1);
+                            element.push(num2 / num1 + num2 % num1);
                             break;
                         default:
                             throw new RuntimeException("暂不支持的运算符");
@@ -0,0 +1,137 @@
+package com.ddf.datastructure.stack;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * int类型的数组栈，非线程安全，容量不够时自动扩容
+ *
+ * {@link java.util.Stack}继承自Vector，每个方法都有synchronized，单线程使用时也要加锁解锁，存入的int还要装箱成Integer；
+ * 这里直接用int[]存放，存取都不会分配任何对象，也没有任何锁。扩容和缩容的方式与可扩容的{@link ArrayStack}相同：
+ *
+ * 1. 满了之后按两倍扩容，均摊到每次push还是O(1)；
+ * 2. 弹出后元素个数不超过容量的1/4时缩容为一半，但不小于初始容量
+ *
+ * @author dongfang.ding
+ * @date 2019/7/26 16:05
+ */
+public class IntArrayStack {
+
+    /**
+     * 默认的初始容量
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 数组的最大长度
+     */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /** 存放元素的数组 */
+    private int[] items;
+
+    /** 栈中元素个数 */
+    private int size;
+
+    /** 初始容量，缩容时不会小于这个值 */
+    private final int initialCapacity;
+
+    public IntArrayStack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity 初始容量
+     */
+    public IntArrayStack(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.items = new int[initialCapacity];
+        this.initialCapacity = initialCapacity;
+    }
+
+    public static void main(String[] args) {
+        IntArrayStack stack = new IntArrayStack(2);
+        for (int i = 0; i < 5; i++) {
+            stack.push(i * 10);
+        }
+        System.out.println(stack + "，容量: " + stack.capacity());
+        System.out.println("弹出元素： [" + stack.pop() + "]");
+        System.out.println("栈顶元素： [" + stack.peek() + "]");
+    }
+
+    /**
+     * 新加元素放在栈顶
+     */
+    public void push(int e) {
+        if (size == items.length) {
+            grow();
+        }
+        items[size++] = e;
+    }
+
+    /**
+     * 从栈顶弹出一个元素，栈为空时抛出异常
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        int e = items[--size];
+        if (size <= items.length >>> 2 && items.length > initialCapacity) {
+            items = Arrays.copyOf(items, Math.max(items.length >>> 1, initialCapacity));
+        }
+        return e;
+    }
+
+    /**
+     * 查看栈顶元素，不会删除栈顶元素，栈为空时抛出异常
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return items[size - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 当前数组的长度
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    /**
+     * 清空栈，容量恢复为初始容量
+     */
+    public void clear() {
+        size = 0;
+        if (items.length != initialCapacity) {
+            items = new int[initialCapacity];
+        }
+    }
+
+    /**
+     * 按两倍扩容，超过最大长度时取最大长度
+     */
+    private void grow() {
+        if (items.length >= MAX_CAPACITY) {
+            throw new IllegalStateException("Stack full");
+        }
+        items = Arrays.copyOf(items, (int) Math.min((long) items.length << 1, MAX_CAPACITY));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(items, size));
+    }
+}